@@ -0,0 +1,110 @@
+package com.empowerly.config;
+
+import com.empowerly.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Authenticates STOMP sessions and guards the HR/Admin broadcast topics. The
+ * {@code /ws} handshake is public, so a CONNECT frame may carry the same
+ * {@code Authorization: Bearer} token as the REST API; a valid token for an
+ * existing user becomes the session user. Sessions without a token still connect
+ * for meeting signaling, but only HR and Admin sessions may SUBSCRIBE to the
+ * live stats and payroll job topics, and no client may SEND to them.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompAuthChannelInterceptor.class);
+
+    static final List<String> PROTECTED_DESTINATIONS = List.of("/topic/admin/**", "/topic/payroll/jobs/**");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        switch (accessor.getCommand()) {
+            case CONNECT -> {
+                Authentication user = authenticate(accessor.getFirstNativeHeader("Authorization"));
+                if (user != null) {
+                    accessor.setUser(user);
+                }
+            }
+            case SUBSCRIBE -> {
+                if (isProtected(accessor.getDestination()) && !isHrOrAdmin(accessor.getUser())) {
+                    throw new AccessDeniedException("HR or Admin role required to subscribe to "
+                            + accessor.getDestination());
+                }
+            }
+            case SEND -> {
+                if (isProtected(accessor.getDestination())) {
+                    throw new AccessDeniedException("Clients cannot send to " + accessor.getDestination());
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private Authentication authenticate(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = authHeader.substring(7);
+        try {
+            if (!jwtUtil.validateToken(token)) {
+                return null;
+            }
+            String userId = jwtUtil.getUserIdFromToken(token);
+            if (userId == null || !userRepository.existsById(userId)) {
+                return null;
+            }
+            SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + jwtUtil.getRoleFromToken(token));
+            return new UsernamePasswordAuthenticationToken(userId, null, Collections.singletonList(authority));
+        } catch (Exception e) {
+            logger.warn("Rejected STOMP token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isProtected(String destination) {
+        return destination != null
+                && PROTECTED_DESTINATIONS.stream().anyMatch(pattern -> pathMatcher.match(pattern, destination));
+    }
+
+    private static boolean isHrOrAdmin(Principal user) {
+        return user instanceof Authentication authentication
+                && authentication.getAuthorities().stream()
+                        .anyMatch(authority -> authority.getAuthority().equals("ROLE_HR")
+                                || authority.getAuthority().equals("ROLE_ADMIN"));
+    }
+}
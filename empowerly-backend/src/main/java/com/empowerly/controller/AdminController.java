@@ -1,11 +1,21 @@
 package com.empowerly.controller;
 
 import com.empowerly.dto.AdminStatsResponse;
+import com.empowerly.dto.UserReferenceMigrationStatus;
 import com.empowerly.service.AdminService;
+import com.empowerly.service.AttendanceBitmapService;
+import com.empowerly.service.AttendanceSummaryService;
+import com.empowerly.service.UserReferenceMigrationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
@@ -13,10 +23,59 @@ import org.springframework.web.bind.annotation.*;
 public class AdminController {
 
     private final AdminService adminService;
+    private final UserReferenceMigrationService userReferenceMigrationService;
+    private final AttendanceSummaryService attendanceSummaryService;
+    private final AttendanceBitmapService attendanceBitmapService;
 
+    /**
+     * Live user and today's presence counters; the HR dashboard reads these too.
+     */
     @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
     public ResponseEntity<AdminStatsResponse> getSystemStats() {
         AdminStatsResponse stats = adminService.getSystemStats();
         return ResponseEntity.ok(stats);
     }
+
+    /**
+     * Starts rewriting legacy user references on attendance and leave records
+     * in the background; poll the GET endpoint for progress. Admin only.
+     */
+    @PostMapping("/migrations/user-references")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserReferenceMigrationStatus> startUserReferenceMigration() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(userReferenceMigrationService.start());
+    }
+
+    @GetMapping("/migrations/user-references")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserReferenceMigrationStatus> getUserReferenceMigrationStatus() {
+        return ResponseEntity.ok(userReferenceMigrationService.getStatus());
+    }
+
+    /**
+     * Recomputes monthly attendance summaries from raw attendance: one month
+     * when year and month are given, otherwise all history. Admin only.
+     */
+    @PostMapping("/attendance-summaries/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildAttendanceSummaries(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month) {
+        YearMonth period = year != null && month != null ? YearMonth.of(year, month) : null;
+        long summaries = attendanceSummaryService.rebuild(period);
+        return ResponseEntity.ok(Map.of("period", period != null ? period.toString() : "all", "summaries", summaries));
+    }
+
+    /**
+     * Recomputes the attendance bitmaps of one year (default: the current year) from raw attendance.
+     * Admin only.
+     */
+    @PostMapping("/attendance-bitmaps/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildAttendanceBitmaps(@RequestParam(required = false) Integer year) {
+        int bitmapYear = year != null ? year : Year.now().getValue();
+        long users = attendanceBitmapService.rebuild(bitmapYear);
+        return ResponseEntity.ok(Map.of("year", bitmapYear, "users", users));
+    }
 }
@@ -1,13 +1,27 @@
 package com.empowerly.controller;
 
 import com.empowerly.config.JwtUtil;
+import com.empowerly.dto.AttendanceCalendar;
+import com.empowerly.dto.AttendanceFeedFilter;
+import com.empowerly.dto.AttendanceFeedPage;
+import com.empowerly.dto.AttendanceImportResult;
 import com.empowerly.model.Attendance;
+import com.empowerly.model.User;
+import com.empowerly.service.AttendanceBitmapService;
+import com.empowerly.service.AttendanceFeedService;
+import com.empowerly.service.AttendanceImportService;
 import com.empowerly.service.AttendanceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -21,6 +35,15 @@ public class AttendanceController {
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private AttendanceFeedService attendanceFeedService;
+
+    @Autowired
+    private AttendanceBitmapService attendanceBitmapService;
+
+    @Autowired
+    private AttendanceImportService attendanceImportService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -143,15 +166,106 @@ public class AttendanceController {
         }
     }
 
+    /**
+     * Year calendar with per-day flags, yearly counts and streaks; defaults to the current year.
+     */
+    @GetMapping("/calendar")
+    public ResponseEntity<?> getCalendar(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) Integer year) {
+        try {
+            String userId = getUserIdFromToken(token);
+            int calendarYear = year != null ? year : LocalDate.now().getYear();
+            AttendanceCalendar calendar = attendanceBitmapService.getCalendar(userId, calendarYear);
+            return ResponseEntity.ok(calendar);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    @GetMapping("/stats/monthly/org")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<?> getOrganizationMonthlyStats(
+            @RequestHeader("Authorization") String token,
+            @RequestParam int year,
+            @RequestParam int month) {
+        try {
+            Map<String, Object> stats = attendanceService.getOrganizationMonthlyStats(year, month);
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Bulk import of badge or biometric punches. The body is CSV with a header
+     * row (userId, timestamp and optional direction IN/OUT columns), or NDJSON
+     * with the same fields when sent as application/x-ndjson. HR and Admin only.
+     */
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<?> importPunches(
+            @RequestHeader("Authorization") String token,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        try {
+            boolean ndjson = contentType.startsWith("application/x-ndjson");
+            AttendanceImportResult result = attendanceImportService.importPunches(body, ndjson);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Org-wide feed, newest first. Pass the returned nextCursor to get the next page.
+     * HR and Admin only.
+     */
     @GetMapping("/all")
-    public ResponseEntity<?> getAllAttendance(@RequestHeader("Authorization") String token) {
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<?> getAllAttendance(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AttendanceFeedService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) User.Department department,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean late,
+            @RequestParam(required = false) Boolean overtime) {
         try {
-            List<Map<String, Object>> allAttendance = attendanceService.getAllAttendanceWithUserDetails();
-            return ResponseEntity.ok(allAttendance);
+            AttendanceFeedFilter filter = new AttendanceFeedFilter(from, to, department, status, late, overtime);
+            AttendanceFeedPage page = attendanceFeedService.getPage(filter, cursor, limit);
+            return ResponseEntity.ok(page);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(error);
         }
     }
+
+    @GetMapping("/all/export")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportAllAttendance(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) User.Department department,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean late,
+            @RequestParam(required = false) Boolean overtime) {
+        AttendanceFeedFilter filter = new AttendanceFeedFilter(from, to, department, status, late, overtime);
+        StreamingResponseBody body = out -> attendanceFeedService.writeCsv(filter, out);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"Attendance_" + LocalDate.now() + ".csv\"")
+                .body(body);
+    }
 }
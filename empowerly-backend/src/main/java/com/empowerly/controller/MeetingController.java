@@ -1,11 +1,13 @@
 package com.empowerly.controller;
 
 import com.empowerly.dto.CreateMeetingRequest;
+import com.empowerly.dto.InviteParticipantsRequest;
 import com.empowerly.dto.MeetingResponse;
 import com.empowerly.service.MeetingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -55,12 +57,15 @@ public class MeetingController {
     }
 
     @PostMapping("/{id}/invite")
-    public ResponseEntity<Void> inviteParticipants(
+    public ResponseEntity<Map<String, Integer>> inviteParticipants(
             @PathVariable String id,
-            @RequestBody Map<String, List<String>> request) {
-        List<String> userIds = request.get("userIds");
-        meetingService.inviteParticipants(id, userIds);
-        return ResponseEntity.ok().build();
+            @RequestBody InviteParticipantsRequest request,
+            Authentication authentication) {
+        boolean hrOrAdmin = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(authority -> authority.equals("ROLE_HR") || authority.equals("ROLE_ADMIN"));
+        int invited = meetingService.inviteParticipants(id, request, authentication.getName(), hrOrAdmin);
+        return ResponseEntity.ok(Map.of("invited", invited));
     }
 
     @PostMapping("/{id}/join")
@@ -1,13 +1,25 @@
 package com.empowerly.controller;
 
 import com.empowerly.dto.*;
+import com.empowerly.service.PayrollExportService;
+import com.empowerly.service.PayrollJobService;
 import com.empowerly.service.PayrollService;
+import com.empowerly.service.PayrollSimulationService;
+import com.empowerly.service.PayslipPdfService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/payroll")
@@ -16,6 +28,10 @@ import java.util.List;
 public class PayrollController {
 
     private final PayrollService payrollService;
+    private final PayrollJobService payrollJobService;
+    private final PayslipPdfService payslipPdfService;
+    private final PayrollSimulationService payrollSimulationService;
+    private final PayrollExportService payrollExportService;
 
     // ==================== HR ENDPOINTS ====================
 
@@ -29,12 +45,16 @@ public class PayrollController {
     }
 
     @PostMapping("/{id}/generate")
-    public ResponseEntity<PayrollResponse> generatePayrollEntries(@PathVariable String id) {
-        PayrollResponse response = payrollService.generatePayrollEntries(id);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<PayrollJobResponse> generatePayrollEntries(
+            @PathVariable String id,
+            Authentication authentication) {
+        String hrUserId = authentication.getName();
+        PayrollJobResponse job = payrollJobService.submitGeneration(id, hrUserId);
+        return ResponseEntity.accepted().body(job);
     }
 
     @PutMapping("/entry/{id}")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
     public ResponseEntity<PayrollEntryResponse> updatePayrollEntry(
             @PathVariable String id,
             @RequestBody UpdatePayrollEntryRequest request) {
@@ -42,6 +62,13 @@ public class PayrollController {
         return ResponseEntity.ok(response);
     }
 
+    @DeleteMapping("/entry/{id}")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<Void> deletePayrollEntry(@PathVariable String id) {
+        payrollService.deletePayrollEntry(id);
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/{id}/submit")
     public ResponseEntity<PayrollResponse> submitForApproval(@PathVariable String id) {
         PayrollResponse response = payrollService.submitForApproval(id);
@@ -66,16 +93,102 @@ public class PayrollController {
         return ResponseEntity.ok(entries);
     }
 
+    @GetMapping("/{id}/export/csv")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportPayrollCsv(
+            @PathVariable String id,
+            @RequestParam(required = false) String afterEmployeeId) {
+        // Rows are ordered by employeeId; pass the last one received to resume
+        StreamingResponseBody body = out -> payrollExportService.writeCsv(id, afterEmployeeId, out);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"Payroll_" + id + ".csv\"")
+                .body(body);
+    }
+
+    @GetMapping("/{id}/export/bank")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBankTransferFile(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        PayrollExportService.BankFileInfo info = payrollExportService.describeBankFile(id);
+        long length = info.getLength();
+        long start = 0;
+        long end = length - 1;
+        HttpStatus status = HttpStatus.OK;
+
+        // A stale If-Range validator means the file changed; send it whole
+        if (range != null && (ifRange == null || ifRange.equals(info.getEtag()))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() != 1) {
+                    throw new IllegalArgumentException("Only a single range is supported");
+                }
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                status = HttpStatus.PARTIAL_CONTENT;
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+        }
+
+        long from = start;
+        long to = end;
+        StreamingResponseBody body = out -> payrollExportService.writeBankFile(info, from, to, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .contentType(MediaType.TEXT_PLAIN)
+                .contentLength(to - from + 1)
+                .eTag(info.getEtag())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"Bank_Transfer_" + id + ".txt\"");
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + from + "-" + to + "/" + length);
+        }
+        return response.body(body);
+    }
+
+    // ==================== JOB ENDPOINTS ====================
+
+    @GetMapping("/jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<PayrollJobResponse> getPayrollJob(@PathVariable String jobId) {
+        PayrollJobResponse job = payrollJobService.getJob(jobId);
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/{id}/jobs")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<List<PayrollJobResponse>> getPayrollJobs(@PathVariable String id) {
+        List<PayrollJobResponse> jobs = payrollJobService.getJobsForPayroll(id);
+        return ResponseEntity.ok(jobs);
+    }
+
     // ==================== ADMIN ENDPOINTS ====================
 
     @PostMapping("/{id}/approve")
-    public ResponseEntity<PayrollResponse> approvePayroll(
+    public ResponseEntity<PayrollJobResponse> approvePayroll(
             @PathVariable String id,
             @RequestBody ApprovePayrollRequest request,
             Authentication authentication) {
         String adminId = authentication.getName();
-        PayrollResponse response = payrollService.approvePayroll(id, adminId, request);
-        return ResponseEntity.ok(response);
+        PayrollJobResponse job = payrollJobService.submitApproval(id, adminId, request);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    /**
+     * Re-queues PDF rendering for payslips of an approved payroll that have none,
+     * e.g. after a render job failed.
+     */
+    @PostMapping("/{id}/render-payslips")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<PayrollJobResponse> renderPayslips(
+            @PathVariable String id,
+            Authentication authentication) {
+        PayrollJobResponse job = payrollJobService.submitRendering(id, authentication.getName());
+        return ResponseEntity.accepted().body(job);
     }
 
     @PostMapping("/{id}/reject")
@@ -89,11 +202,23 @@ public class PayrollController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletePayroll(@PathVariable String id) {
-        payrollService.deletePayroll(id);
+    public ResponseEntity<PayrollJobResponse> deletePayroll(
+            @PathVariable String id,
+            Authentication authentication) {
+        PayrollJobResponse job = payrollJobService.submitDeletion(id, authentication.getName());
+        if (job != null) {
+            return ResponseEntity.accepted().body(job);
+        }
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/reconcile-totals")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> reconcilePayrollTotals() {
+        int corrected = payrollService.reconcilePayrollTotals();
+        return ResponseEntity.ok(Map.of("corrected", corrected));
+    }
+
     // ==================== EMPLOYEE ENDPOINTS ====================
 
     @GetMapping("/payslips/my")
@@ -113,6 +238,21 @@ public class PayrollController {
         return ResponseEntity.ok(payslip);
     }
 
+    @GetMapping("/payslips/{month}/{year}/pdf")
+    public ResponseEntity<byte[]> downloadPayslipPdf(
+            @PathVariable int month,
+            @PathVariable int year,
+            Authentication authentication) {
+        String employeeId = authentication.getName();
+        byte[] pdfBytes = payslipPdfService.getPayslipPdf(employeeId, month, year);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", "Payslip_" + year + "_" + month + ".pdf");
+
+        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    }
+
     // ==================== SALARY STRUCTURE ENDPOINTS ====================
 
     @PostMapping("/salary-structure")
@@ -142,4 +282,13 @@ public class PayrollController {
         java.util.List<com.empowerly.model.SalaryStructure> structures = payrollService.getAllSalaryStructures();
         return ResponseEntity.ok(structures);
     }
+
+    // ==================== SIMULATION ENDPOINTS ====================
+
+    @PostMapping("/simulate")
+    @PreAuthorize("hasAnyRole('HR', 'ADMIN')")
+    public ResponseEntity<PayrollSimulationResponse> simulatePayroll(@RequestBody PayrollSimulationRequest request) {
+        PayrollSimulationResponse response = payrollSimulationService.simulate(request);
+        return ResponseEntity.ok(response);
+    }
 }
@@ -12,5 +12,8 @@ public class AdminStatsResponse {
     private long totalEmployees;
     private long totalHR;
     private long totalAdmins;
-    private long activeToday;
+    private long activeToday; // currently checked in
+    private long checkedOutToday;
+    private long lateToday;
+    private long onLeaveToday;
 }
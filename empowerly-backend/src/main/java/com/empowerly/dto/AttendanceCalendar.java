@@ -0,0 +1,37 @@
+package com.empowerly.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user's year at a glance. {@code days[i]} holds the flags of day-of-year
+ * i + 1 ({@link #PRESENT}, {@link #LATE}, ...), zero for days without a record.
+ * Streaks count recorded days only, so weekends and holidays do not break them;
+ * a present streak is broken by a leave day, a late streak by an on-time day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceCalendar {
+    public static final int PRESENT = 1;
+    public static final int LATE = 2;
+    public static final int HALF_DAY = 4;
+    public static final int LEAVE = 8;
+    public static final int OVERTIME = 16;
+
+    private String userId;
+    private int year;
+    private int[] days;
+
+    private int presentDays;
+    private int lateDays;
+    private int halfDays;
+    private int leaveDays;
+    private int overtimeDays;
+
+    private int currentPresentStreak;
+    private int longestPresentStreak;
+    private int currentLateStreak;
+    private int longestLateStreak;
+}
@@ -0,0 +1,20 @@
+package com.empowerly.dto;
+
+import com.empowerly.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceFeedFilter {
+    private LocalDate from;
+    private LocalDate to;
+    private User.Department department;
+    private String attendanceStatus; // PRESENT, LATE, HALF_DAY, LEAVE, ...
+    private Boolean late;
+    private Boolean overtime;
+}
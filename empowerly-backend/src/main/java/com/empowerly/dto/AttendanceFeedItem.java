@@ -0,0 +1,32 @@
+package com.empowerly.dto;
+
+import com.empowerly.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Slim attendance row for the org-wide feed; read straight from the attendance
+ * collection with a field projection.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceFeedItem {
+    private String id;
+    private String userId;
+    private String userName;
+    private String userEmail;
+    private User.Department department;
+    private LocalDate date;
+    private LocalDateTime checkInTime;
+    private LocalDateTime checkOutTime;
+    private String status;
+    private String attendanceStatus;
+    private Double totalWorkHours;
+    private Boolean isLate;
+    private Boolean isOvertime;
+}
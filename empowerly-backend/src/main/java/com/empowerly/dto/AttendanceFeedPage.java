@@ -0,0 +1,15 @@
+package com.empowerly.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceFeedPage {
+    private List<AttendanceFeedItem> items;
+    private String nextCursor; // null on the last page
+}
@@ -0,0 +1,28 @@
+package com.empowerly.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceImportResult {
+    private long rowsRead;
+    private long rowsRejected;
+    private long recordsWritten; // attendance records created or updated
+
+    private List<RowError> errors = new ArrayList<>(); // first errors only, see errorsTruncated
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
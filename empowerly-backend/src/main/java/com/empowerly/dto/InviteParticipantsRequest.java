@@ -0,0 +1,17 @@
+package com.empowerly.dto;
+
+import com.empowerly.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InviteParticipantsRequest {
+    private List<String> userIds;
+    private User.Department department; // invite everyone in a department
+    private User.Role role; // invite everyone with a role
+}
@@ -45,20 +45,12 @@ public class LeaveDTO {
         dto.setCreatedAt(leave.getCreatedAt());
         dto.setUpdatedAt(leave.getUpdatedAt());
 
-        // Set employee details
-        if (leave.getEmployee() != null) {
-            dto.setEmployeeId(leave.getEmployee().getId());
-            dto.setUserName(leave.getEmployee().getName());
-            dto.setUserEmail(leave.getEmployee().getEmail());
-            dto.setDepartment(
-                    leave.getEmployee().getDepartment() != null ? leave.getEmployee().getDepartment().toString()
-                            : null);
-        }
-
-        // Set approver details
-        if (leave.getApprovedBy() != null) {
-            dto.setApprovedBy(leave.getApprovedBy().getName());
-        }
+        // Employee and approver details are stored on the leave
+        dto.setEmployeeId(leave.getEmployeeId());
+        dto.setUserName(leave.getEmployeeName());
+        dto.setUserEmail(leave.getEmployeeEmail());
+        dto.setDepartment(leave.getDepartment() != null ? leave.getDepartment().toString() : null);
+        dto.setApprovedBy(leave.getApprovedByName());
 
         return dto;
     }
@@ -0,0 +1,30 @@
+package com.empowerly.dto;
+
+import com.empowerly.model.PayrollJobStatus;
+import com.empowerly.model.PayrollJobType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollJobResponse {
+    private String id;
+    private String payrollId;
+    private PayrollJobType type;
+    private PayrollJobStatus status;
+
+    private int processed;
+    private int total;
+    private double percentComplete;
+    private Long etaSeconds; // null until there is enough progress to estimate
+
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,21 @@
+package com.empowerly.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Hypothetical rule changes for a what-if run. Omitted fields keep each
+ * employee's current value.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollSimulationRequest {
+    private Double taxPercentage;
+    private Double pfPercentage;
+    private Map<String, Double> allowanceCaps; // HRA, DA, Travel, Medical, Other -> monthly cap
+    private boolean includeEmployees;
+}
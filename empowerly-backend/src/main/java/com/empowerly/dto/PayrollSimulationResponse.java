@@ -0,0 +1,46 @@
+package com.empowerly.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollSimulationResponse {
+    private LocalDateTime structuresLoadedAt;
+    private long durationMillis;
+    private SimulationTotals organization;
+    private List<SimulationTotals> departments;
+    private List<EmployeeDelta> employees;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SimulationTotals {
+        private String department;
+        private int employeeCount;
+        private double baselineGross;
+        private double simulatedGross;
+        private double baselineDeductions;
+        private double simulatedDeductions;
+        private double baselineNet;
+        private double simulatedNet;
+        private double netDelta;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EmployeeDelta {
+        private String employeeId;
+        private String employeeName;
+        private String department;
+        private double baselineNet;
+        private double simulatedNet;
+        private double netDelta;
+    }
+}
@@ -0,0 +1,25 @@
+package com.empowerly.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserReferenceMigrationStatus {
+    private boolean running;
+
+    private Map<String, Long> migrated = new LinkedHashMap<>(); // documents rewritten per collection
+    private long missingUsers; // references to users that no longer exist
+    private long duplicatesArchived; // attendance records moved to attendance_duplicates
+
+    private String error;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -5,8 +5,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -17,13 +18,30 @@ import java.time.Duration;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "attendance")
+@CompoundIndexes({
+        // One record per user per day; the partial filter leaves records written before userId existed out of the index
+        @CompoundIndex(name = "user_date", def = "{ 'userId': 1, 'date': 1 }", unique = true,
+                partialFilter = "{ 'userId': { $exists: true } }"),
+        // Org-wide feed order, overall and per department
+        @CompoundIndex(name = "date_id", def = "{ 'date': -1, '_id': -1 }"),
+        @CompoundIndex(name = "department_date", def = "{ 'department': 1, 'date': -1, '_id': -1 }"),
+        // Only open records, so the midnight auto-checkout finds them without a collection scan
+        @CompoundIndex(name = "open_records", def = "{ 'status': 1 }",
+                partialFilter = "{ 'status': 'CHECKED_IN' }")
+})
 public class Attendance {
 
     @Id
     private String id;
 
-    @DBRef
-    private User user;
+    private String userId;
+
+    // Denormalized from the user so listings need no user lookups
+    private String userName;
+
+    private String userEmail;
+
+    private User.Department department;
 
     private LocalDate date; // Date of attendance
 
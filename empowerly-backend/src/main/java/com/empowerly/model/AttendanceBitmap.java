@@ -0,0 +1,43 @@
+package com.empowerly.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user's attendance for one calendar year as bit lanes: bit n of a lane
+ * is day-of-year n + 1. Each lane is six longs (384 bits), so a whole year is
+ * 240 bytes and single days are flipped in place with {@code $bit}.
+ */
+@Document(collection = "attendance_bitmaps")
+@CompoundIndex(name = "user_year", def = "{ 'userId': 1, 'year': 1 }", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceBitmap {
+    public static final int WORDS = 6;
+
+    @Id
+    private String id;
+
+    private String userId;
+    private int year;
+
+    private long[] present; // checked in, whatever the final status
+    private long[] late;
+    private long[] halfDay;
+    private long[] leave;
+    private long[] overtime;
+
+    private LocalDateTime updatedAt;
+
+    public static AttendanceBitmap empty(String userId, int year) {
+        return new AttendanceBitmap(null, userId, year, new long[WORDS], new long[WORDS], new long[WORDS],
+                new long[WORDS], new long[WORDS], LocalDateTime.now());
+    }
+}
@@ -0,0 +1,45 @@
+package com.empowerly.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Attendance totals of one user for one calendar month, kept in step with the
+ * attendance collection by incremental updates and rebuildable from it.
+ */
+@Document(collection = "attendance_summaries")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_period", def = "{ 'userId': 1, 'year': 1, 'month': 1 }", unique = true),
+        @CompoundIndex(name = "period", def = "{ 'year': 1, 'month': 1 }")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceSummary {
+    @Id
+    private String id;
+
+    private String userId;
+    private String userName;
+    private User.Department department;
+
+    private int year;
+    private int month;
+
+    private int recordedDays; // attendance records of any status
+    private int presentDays;
+    private int lateDays;
+    private int halfDays;
+    private int leaveDays;
+    private long workMinutes;
+    private long overtimeMinutes;
+
+    private LocalDateTime updatedAt;
+}
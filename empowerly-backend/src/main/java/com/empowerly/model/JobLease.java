@@ -0,0 +1,25 @@
+package com.empowerly.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide lease on a scheduled job; the job name is the id.
+ */
+@Document(collection = "job_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLease {
+    @Id
+    private String name;
+
+    private String owner; // node holding (or last holding) the lease
+    private LocalDateTime lockedAt;
+    private LocalDateTime lockedUntil;
+}
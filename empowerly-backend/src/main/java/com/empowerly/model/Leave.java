@@ -6,8 +6,9 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -17,13 +18,25 @@ import java.time.temporal.ChronoUnit;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "leaves")
+@CompoundIndexes({
+        @CompoundIndex(name = "employee_created", def = "{ 'employeeId': 1, 'createdAt': -1 }"),
+        // Overlap checks and yearly reports; endDate leads so a range only reaches leaves ending on or after a date
+        @CompoundIndex(name = "employee_period", def = "{ 'employeeId': 1, 'endDate': 1, 'startDate': 1, 'status': 1 }"),
+        @CompoundIndex(name = "department_status", def = "{ 'department': 1, 'status': 1 }")
+})
 public class Leave {
 
     @Id
     private String id;
 
-    @DBRef
-    private User employee;
+    private String employeeId;
+
+    // Denormalized from the employee so listings need no user lookups
+    private String employeeName;
+
+    private String employeeEmail;
+
+    private User.Department department;
 
     private LeaveType leaveType = LeaveType.CASUAL_LEAVE;
 
@@ -41,8 +54,9 @@ public class Leave {
 
     private String hrRemarks;
 
-    @DBRef
-    private User approvedBy;
+    private String approvedById;
+
+    private String approvedByName;
 
     private LocalDateTime approvedAt;
 
@@ -4,20 +4,20 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "leave_balances")
+@CompoundIndex(name = "user_year", def = "{ 'userId': 1, 'year': 1 }")
 public class LeaveBalance {
 
     @Id
     private String id;
 
-    @DBRef
-    private User user;
+    private String userId;
 
     private int year;
 
@@ -71,4 +71,18 @@ public class LeaveBalance {
                 break;
         }
     }
+
+    public void restoreLeave(Leave.LeaveType leaveType, int days) {
+        switch (leaveType) {
+            case CASUAL_LEAVE:
+                casualLeaveUsed = Math.max(0, casualLeaveUsed - days);
+                break;
+            case SICK_LEAVE:
+                sickLeaveUsed = Math.max(0, sickLeaveUsed - days);
+                break;
+            case PAID_LEAVE:
+                paidLeaveUsed = Math.max(0, paidLeaveUsed - days);
+                break;
+        }
+    }
 }
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -11,6 +14,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "meetings")
+@CompoundIndexes({
+        @CompoundIndex(name = "host_upcoming", def = "{ 'hostId': 1, 'status': 1, 'scheduledTime': 1 }"),
+        @CompoundIndex(name = "participant_upcoming", def = "{ 'participantIds': 1, 'status': 1, 'scheduledTime': 1 }")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,6 +32,7 @@ public class Meeting {
     private LocalDateTime scheduledTime;
     private Integer duration; // in minutes
     private MeetingStatus status;
+    @Indexed(unique = true)
     private String meetingLink;
     private LocalDateTime createdAt;
     private LocalDateTime startedAt;
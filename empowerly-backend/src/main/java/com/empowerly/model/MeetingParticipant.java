@@ -4,11 +4,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "meeting_participants")
+@CompoundIndex(name = "meeting_user", def = "{ 'meetingId': 1, 'userId': 1 }", unique = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
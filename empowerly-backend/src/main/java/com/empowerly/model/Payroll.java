@@ -24,7 +24,7 @@ public class Payroll {
     private String approvedBy; // Admin user ID
 
     private int totalEmployees;
-    private double totalAmount;
+    private long totalAmountMinor; // net total in paise, adjusted with $inc on entry edits
 
     private LocalDateTime generatedAt;
     private LocalDateTime submittedAt;
@@ -4,11 +4,14 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Map;
 
 @Document(collection = "payroll_entries")
+// One entry per employee per payroll, so a resumed generation cannot duplicate entries
+@CompoundIndex(name = "payroll_employee", def = "{ 'payrollId': 1, 'employeeId': 1 }", unique = true)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
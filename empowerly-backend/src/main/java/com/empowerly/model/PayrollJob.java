@@ -0,0 +1,43 @@
+package com.empowerly.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "payroll_jobs")
+@CompoundIndexes({
+        @CompoundIndex(name = "payroll_status", def = "{ 'payrollId': 1, 'status': 1 }"),
+        // At most one QUEUED or RUNNING job per payroll and operation
+        @CompoundIndex(name = "payroll_type_active", def = "{ 'payrollId': 1, 'type': 1, 'active': 1 }",
+                unique = true, partialFilter = "{ 'active': true }")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollJob {
+    @Id
+    private String id;
+
+    private String payrollId;
+    private PayrollJobType type;
+    private PayrollJobStatus status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private String requestedBy;
+    private Boolean active; // true while QUEUED or RUNNING, unset once finished
+
+    // Progress, checkpointed after every chunk
+    private int processed;
+    private int total;
+
+    private String error;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt; // a RUNNING job with a stale heartbeat is resumed
+    private LocalDateTime completedAt;
+}
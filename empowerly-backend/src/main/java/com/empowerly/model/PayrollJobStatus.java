@@ -0,0 +1,8 @@
+package com.empowerly.model;
+
+public enum PayrollJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.empowerly.model;
+
+public enum PayrollJobType {
+    GENERATE_ENTRIES,
+    APPROVE,
+    RENDER_PAYSLIPS,
+    DELETE_PAYROLL
+}
@@ -4,12 +4,14 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Document(collection = "salary_structures")
+@CompoundIndex(name = "employee_effective", def = "{ 'employeeId': 1, 'effectiveFrom': -1 }")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
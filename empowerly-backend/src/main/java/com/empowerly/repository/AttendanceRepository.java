@@ -1,7 +1,6 @@
 package com.empowerly.repository;
 
 import com.empowerly.model.Attendance;
-import com.empowerly.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,13 +11,13 @@ import java.util.Optional;
 @Repository
 public interface AttendanceRepository extends MongoRepository<Attendance, String> {
 
-    List<Attendance> findByUser(User user);
+    List<Attendance> findByUserId(String userId);
 
-    List<Attendance> findByUserOrderByCheckInTimeDesc(User user);
+    List<Attendance> findByUserIdOrderByCheckInTimeDesc(String userId);
 
-    Optional<Attendance> findByUserAndStatus(User user, String status);
+    Optional<Attendance> findByUserIdAndStatus(String userId, String status);
 
-    List<Attendance> findByUserAndCheckInTimeBetween(User user, LocalDateTime start, LocalDateTime end);
+    List<Attendance> findByUserIdAndCheckInTimeBetween(String userId, LocalDateTime start, LocalDateTime end);
 
     List<Attendance> findByCheckInTimeBetween(LocalDateTime start, LocalDateTime end);
 
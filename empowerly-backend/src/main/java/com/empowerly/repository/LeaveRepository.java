@@ -3,20 +3,35 @@ package com.empowerly.repository;
 import com.empowerly.model.Leave;
 import com.empowerly.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface LeaveRepository extends MongoRepository<Leave, String> {
 
-    List<Leave> findByEmployee(User employee);
+    List<Leave> findByEmployeeId(String employeeId);
 
-    List<Leave> findByEmployeeOrderByCreatedAtDesc(User employee);
+    List<Leave> findByEmployeeIdOrderByCreatedAtDesc(String employeeId);
+
+    /**
+     * Whether the employee has a pending or approved leave sharing at least one day with [startDate, endDate].
+     */
+    @Query(value = "{ 'employeeId': ?0, 'endDate': { $gte: ?1 }, 'startDate': { $lte: ?2 }, 'status': { $ne: 'REJECTED' } }", exists = true)
+    boolean existsOverlapping(String employeeId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Leaves starting within [from, to], newest first. The endDate bound is implied by the
+     * start date and only there to give the employee_period index a lower bound.
+     */
+    @Query(value = "{ 'employeeId': ?0, 'endDate': { $gte: ?1 }, 'startDate': { $gte: ?1, $lte: ?2 } }", sort = "{ 'createdAt': -1 }")
+    List<Leave> findStartingBetween(String employeeId, LocalDate from, LocalDate to);
 
     List<Leave> findByStatus(Leave.LeaveStatus status);
 
     List<Leave> findByStatusOrderByCreatedAtAsc(Leave.LeaveStatus status);
 
-    List<Leave> findByEmployeeDepartmentAndStatus(User.Department department, Leave.LeaveStatus status);
+    List<Leave> findByDepartmentAndStatus(User.Department department, Leave.LeaveStatus status);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,8 @@ public interface MeetingParticipantRepository extends MongoRepository<MeetingPar
 
     List<MeetingParticipant> findByMeetingId(String meetingId);
 
+    List<MeetingParticipant> findByMeetingIdIn(Collection<String> meetingIds);
+
     List<MeetingParticipant> findByUserId(String userId);
 
     List<MeetingParticipant> findByUserIdAndStatus(String userId, ParticipantStatus status);
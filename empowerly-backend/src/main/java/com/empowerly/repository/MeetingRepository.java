@@ -2,6 +2,7 @@ package com.empowerly.repository;
 
 import com.empowerly.model.Meeting;
 import com.empowerly.model.Meeting.MeetingStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -19,11 +20,8 @@ public interface MeetingRepository extends MongoRepository<Meeting, String> {
 
     Optional<Meeting> findByMeetingLink(String meetingLink);
 
-    @Query("{ 'hostId': ?0, 'scheduledTime': { $gt: ?1 }, 'status': 'SCHEDULED' }")
-    List<Meeting> findUpcomingMeetingsByHost(String userId, LocalDateTime now);
-
-    @Query("{ 'participantIds': ?0, 'scheduledTime': { $gt: ?1 }, 'status': 'SCHEDULED' }")
-    List<Meeting> findUpcomingMeetingsByParticipant(String userId, LocalDateTime now);
+    @Query(value = "{ $or: [ { 'hostId': ?0 }, { 'participantIds': ?0 } ], 'scheduledTime': { $gt: ?1 }, 'status': 'SCHEDULED' }", sort = "{ 'scheduledTime': 1 }")
+    List<Meeting> findUpcomingMeetingsByUser(String userId, LocalDateTime now, Pageable pageable);
 
     @Query("{ 'status': 'IN_PROGRESS' }")
     List<Meeting> findActiveMeetings();
@@ -2,6 +2,7 @@ package com.empowerly.repository;
 
 import com.empowerly.model.PayrollEntry;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,7 +12,12 @@ import java.util.Optional;
 public interface PayrollEntryRepository extends MongoRepository<PayrollEntry, String> {
     List<PayrollEntry> findByPayrollId(String payrollId);
 
+    long countByPayrollId(String payrollId);
+
     List<PayrollEntry> findByEmployeeId(String employeeId);
 
     Optional<PayrollEntry> findByPayrollIdAndEmployeeId(String payrollId, String employeeId);
+
+    @Query(value = "{ 'payrollId': ?0 }", fields = "{ 'employeeId': 1 }")
+    List<PayrollEntry> findEmployeeIdsByPayrollId(String payrollId);
 }
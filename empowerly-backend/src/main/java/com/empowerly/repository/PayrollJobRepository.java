@@ -0,0 +1,29 @@
+package com.empowerly.repository;
+
+import com.empowerly.model.PayrollJob;
+import com.empowerly.model.PayrollJobStatus;
+import com.empowerly.model.PayrollJobType;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PayrollJobRepository extends MongoRepository<PayrollJob, String> {
+    List<PayrollJob> findByPayrollIdOrderByCreatedAtDesc(String payrollId);
+
+    Optional<PayrollJob> findFirstByPayrollIdAndTypeAndStatusIn(String payrollId, PayrollJobType type,
+            Collection<PayrollJobStatus> statuses);
+
+    boolean existsByPayrollIdAndTypeAndStatus(String payrollId, PayrollJobType type, PayrollJobStatus status);
+
+    boolean existsByPayrollIdAndType(String payrollId, PayrollJobType type);
+
+    List<PayrollJob> findByTypeAndStatusAndCompletedAtAfter(PayrollJobType type, PayrollJobStatus status,
+            LocalDateTime after);
+
+    List<PayrollJob> findByStatusInAndHeartbeatAtBefore(Collection<PayrollJobStatus> statuses, LocalDateTime cutoff);
+}
@@ -14,6 +14,8 @@ public interface PayrollRepository extends MongoRepository<Payroll, String> {
 
     List<Payroll> findByStatus(PayrollStatus status);
 
+    boolean existsByIdAndStatus(String id, PayrollStatus status);
+
     List<Payroll> findByCreatedBy(String userId);
 
     List<Payroll> findAllByOrderByYearDescMonthDesc();
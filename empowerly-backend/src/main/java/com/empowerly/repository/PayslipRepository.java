@@ -13,6 +13,9 @@ public interface PayslipRepository extends MongoRepository<Payslip, String> {
 
     Optional<Payslip> findByEmployeeIdAndMonthAndYear(String employeeId, int month, int year);
 
+    Optional<Payslip> findFirstByEmployeeIdAndMonthAndYearOrderByGeneratedAtDesc(String employeeId, int month,
+            int year);
+
     List<Payslip> findAllByEmployeeIdAndMonthAndYear(String employeeId, int month, int year);
 
     Optional<Payslip> findByPayrollEntryId(String payrollEntryId);
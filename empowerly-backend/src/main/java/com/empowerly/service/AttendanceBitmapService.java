@@ -0,0 +1,345 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.AttendanceCalendar;
+import com.empowerly.model.Attendance;
+import com.empowerly.model.AttendanceBitmap;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Per-user, per-year attendance bitmaps behind the calendar heatmap, yearly
+ * day counts and streaks. Every attendance write sets or clears its day's bit
+ * in each lane with one {@code $bit} update; a bitmap that does not exist yet
+ * is built from that year's attendance on first use. Reads are served from a
+ * small in-memory cache, so a calendar is a handful of bit operations over
+ * 240 bytes instead of a range scan over the year's records.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceBitmapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceBitmapService.class);
+
+    private static final String[] LANES = { "present", "late", "halfDay", "leave", "overtime" };
+    private static final int[] LANE_FLAGS = { AttendanceCalendar.PRESENT, AttendanceCalendar.LATE,
+            AttendanceCalendar.HALF_DAY, AttendanceCalendar.LEAVE, AttendanceCalendar.OVERTIME };
+    private static final String[] SOURCE_FIELDS = { "userId", "date", "checkInTime", "attendanceStatus", "isLate",
+            "isOvertime" };
+
+    private final MongoTemplate mongoTemplate;
+
+    // Short expiry so bits flipped by other nodes show up within minutes
+    private final Cache<String, AttendanceBitmap> bitmaps = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    public AttendanceCalendar getCalendar(String userId, int year) {
+        AttendanceBitmap bitmap = bitmaps.get(key(userId, year), k -> loadOrBuild(userId, year));
+        long[][] lanes = lanes(bitmap);
+
+        int length = LocalDate.ofYearDay(year, 1).lengthOfYear();
+        int[] days = new int[length];
+        for (int lane = 0; lane < LANES.length; lane++) {
+            forEachSetBit(lanes[lane], LANE_FLAGS[lane], days);
+        }
+
+        // Only days up to today count towards the current streaks (leave can be marked ahead)
+        LocalDate today = LocalDate.now();
+        int lastDay = year < today.getYear() ? length : year > today.getYear() ? 0 : today.getDayOfYear();
+        long[] recorded = upTo(or(bitmap.getPresent(), bitmap.getLeave()), lastDay);
+        long[] attended = upTo(bitmap.getPresent(), lastDay);
+        int[] presentStreak = streaks(bitmap.getPresent(), recorded);
+        int[] lateStreak = streaks(bitmap.getLate(), attended);
+
+        return new AttendanceCalendar(userId, year, days,
+                count(bitmap.getPresent()), count(bitmap.getLate()), count(bitmap.getHalfDay()),
+                count(bitmap.getLeave()), count(bitmap.getOvertime()),
+                presentStreak[0], presentStreak[1], lateStreak[0], lateStreak[1]);
+    }
+
+    /**
+     * Brings the bits of the record's day in line with its current state. A
+     * failure is logged rather than thrown: the attendance write already
+     * happened, and a rebuild of the year corrects the bitmap.
+     */
+    public void apply(Attendance record) {
+        if (record == null || record.getUserId() == null || record.getDate() == null) {
+            return;
+        }
+        int year = record.getDate().getYear();
+        Query query = bitmapQuery(record.getUserId(), year);
+        try {
+            if (mongoTemplate.updateFirst(query, bitUpdate(record), AttendanceBitmap.class).getMatchedCount() == 0) {
+                // First write of the year: the built bitmap already includes this record
+                loadOrBuild(record.getUserId(), year);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not update attendance bitmap for user {} ({}): {}", record.getUserId(), year,
+                    e.getMessage());
+        }
+        bitmaps.invalidate(key(record.getUserId(), year));
+    }
+
+    /**
+     * {@link #apply(Attendance)} for many records at once, e.g. after a bulk
+     * update. Records whose bitmap does not exist yet are skipped; it is built
+     * from attendance on first read.
+     */
+    public void applyAll(Collection<String> attendanceIds) {
+        if (attendanceIds.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("_id").in(attendanceIds));
+        query.fields().include(SOURCE_FIELDS);
+        List<Attendance> records = mongoTemplate.find(query, Attendance.class);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceBitmap.class);
+        int operations = 0;
+        for (Attendance record : records) {
+            if (record.getUserId() != null && record.getDate() != null) {
+                bulk.updateOne(bitmapQuery(record.getUserId(), record.getDate().getYear()), bitUpdate(record));
+                bitmaps.invalidate(key(record.getUserId(), record.getDate().getYear()));
+                operations++;
+            }
+        }
+        if (operations > 0) {
+            try {
+                bulk.execute();
+            } catch (RuntimeException e) {
+                logger.warn("Could not update {} attendance bitmaps: {}", operations, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Clears every lane on the given days, for records that were deleted. One
+     * update per year touched, each clearing all days of that year at once.
+     */
+    public void clearDays(String userId, Collection<LocalDate> dates) {
+        Map<Integer, long[]> masks = new HashMap<>();
+        for (LocalDate date : dates) {
+            int bit = date.getDayOfYear() - 1;
+            masks.computeIfAbsent(date.getYear(), year -> new long[AttendanceBitmap.WORDS])[bit >>> 6] |= 1L << bit;
+        }
+        masks.forEach((year, mask) -> {
+            Update update = new Update().set("updatedAt", LocalDateTime.now());
+            for (int word = 0; word < mask.length; word++) {
+                if (mask[word] != 0) {
+                    for (String lane : LANES) {
+                        update.bitwise(lane + "." + word).and(~mask[word]);
+                    }
+                }
+            }
+            try {
+                mongoTemplate.updateFirst(bitmapQuery(userId, year), update, AttendanceBitmap.class);
+            } catch (RuntimeException e) {
+                logger.warn("Could not update attendance bitmap for user {} ({}): {}", userId, year, e.getMessage());
+            }
+            bitmaps.invalidate(key(userId, year));
+        });
+    }
+
+    public void deleteForUser(String userId) {
+        mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId)), AttendanceBitmap.class);
+        bitmaps.asMap().keySet().removeIf(key -> key.startsWith(userId + ":"));
+    }
+
+    /**
+     * Recomputes every bitmap of one year from the attendance collection with a
+     * single pass over the year's records, and returns how many there are.
+     */
+    public long rebuild(int year) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Map<String, AttendanceBitmap> built = new HashMap<>();
+        try (Stream<Attendance> records = mongoTemplate.stream(yearQuery(null, year), Attendance.class)) {
+            records.forEach(record -> set(built.computeIfAbsent(record.getUserId(),
+                    userId -> AttendanceBitmap.empty(userId, year)), record));
+        }
+
+        if (!built.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AttendanceBitmap.class);
+            for (AttendanceBitmap bitmap : built.values()) {
+                Update update = new Update().set("updatedAt", startedAt);
+                long[][] lanes = lanes(bitmap);
+                for (int lane = 0; lane < LANES.length; lane++) {
+                    update.set(LANES[lane], lanes[lane]);
+                }
+                bulk.upsert(bitmapQuery(bitmap.getUserId(), year), update);
+            }
+            bulk.execute();
+        }
+
+        // Bitmaps the pass did not touch have no attendance left in the year
+        mongoTemplate.remove(Query.query(Criteria.where("year").is(year).and("updatedAt").lt(startedAt)),
+                AttendanceBitmap.class);
+        bitmaps.invalidateAll();
+
+        logger.info("Rebuilt attendance bitmaps for {}: {} users", year, built.size());
+        return built.size();
+    }
+
+    private AttendanceBitmap loadOrBuild(String userId, int year) {
+        AttendanceBitmap bitmap = mongoTemplate.findOne(bitmapQuery(userId, year), AttendanceBitmap.class);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        AttendanceBitmap built = AttendanceBitmap.empty(userId, year);
+        mongoTemplate.find(yearQuery(userId, year), Attendance.class).forEach(record -> set(built, record));
+        try {
+            return mongoTemplate.insert(built);
+        } catch (DuplicateKeyException e) {
+            // Built concurrently by another request; use the stored one
+            return mongoTemplate.findOne(bitmapQuery(userId, year), AttendanceBitmap.class);
+        }
+    }
+
+    private static Update bitUpdate(Attendance record) {
+        int bit = record.getDate().getDayOfYear() - 1;
+        String word = "." + (bit >>> 6);
+        long mask = 1L << bit;
+        int flags = flags(record);
+
+        Update update = new Update().set("updatedAt", LocalDateTime.now());
+        for (int lane = 0; lane < LANES.length; lane++) {
+            if ((flags & LANE_FLAGS[lane]) != 0) {
+                update.bitwise(LANES[lane] + word).or(mask);
+            } else {
+                update.bitwise(LANES[lane] + word).and(~mask);
+            }
+        }
+        return update;
+    }
+
+    private static void set(AttendanceBitmap bitmap, Attendance record) {
+        int bit = record.getDate().getDayOfYear() - 1;
+        int flags = flags(record);
+        long[][] lanes = lanes(bitmap);
+        for (int lane = 0; lane < LANES.length; lane++) {
+            if ((flags & LANE_FLAGS[lane]) != 0) {
+                lanes[lane][bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    private static int flags(Attendance record) {
+        int flags = 0;
+        if (record.getCheckInTime() != null) {
+            flags |= AttendanceCalendar.PRESENT;
+        }
+        if (Boolean.TRUE.equals(record.getIsLate())) {
+            flags |= AttendanceCalendar.LATE;
+        }
+        if ("HALF_DAY".equals(record.getAttendanceStatus())) {
+            flags |= AttendanceCalendar.HALF_DAY;
+        }
+        if ("LEAVE".equals(record.getAttendanceStatus())) {
+            flags |= AttendanceCalendar.LEAVE;
+        }
+        if (Boolean.TRUE.equals(record.getIsOvertime())) {
+            flags |= AttendanceCalendar.OVERTIME;
+        }
+        return flags;
+    }
+
+    private static long[][] lanes(AttendanceBitmap bitmap) {
+        return new long[][] { bitmap.getPresent(), bitmap.getLate(), bitmap.getHalfDay(), bitmap.getLeave(),
+                bitmap.getOvertime() };
+    }
+
+    private static void forEachSetBit(long[] lane, int flag, int[] days) {
+        for (int word = 0; word < lane.length; word++) {
+            for (long bits = lane[word]; bits != 0; bits &= bits - 1) {
+                int day = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (day < days.length) {
+                    days[day] |= flag;
+                }
+            }
+        }
+    }
+
+    /**
+     * Current and longest run of {@code run} bits, walking only the days set in
+     * {@code considered}; a considered day without a run bit ends the run.
+     * Package-private for the benchmark.
+     */
+    static int[] streaks(long[] run, long[] considered) {
+        int current = 0;
+        int longest = 0;
+        for (int word = 0; word < considered.length; word++) {
+            for (long bits = considered[word]; bits != 0; bits &= bits - 1) {
+                if ((run[word] & Long.lowestOneBit(bits)) != 0) {
+                    longest = Math.max(longest, ++current);
+                } else {
+                    current = 0;
+                }
+            }
+        }
+        return new int[] { current, longest };
+    }
+
+    private static long[] or(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        for (int word = 0; word < a.length; word++) {
+            result[word] = a[word] | b[word];
+        }
+        return result;
+    }
+
+    /**
+     * A copy of {@code lane} with every bit from day-of-year {@code lastDay} + 1 on cleared.
+     */
+    private static long[] upTo(long[] lane, int lastDay) {
+        long[] result = new long[lane.length];
+        for (int word = 0; word < lane.length; word++) {
+            int keep = Math.min(Math.max(lastDay - (word << 6), 0), 64);
+            result[word] = keep == 64 ? lane[word] : lane[word] & ((1L << keep) - 1);
+        }
+        return result;
+    }
+
+    private static int count(long[] lane) {
+        int count = 0;
+        for (long word : lane) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static Query bitmapQuery(String userId, int year) {
+        return Query.query(Criteria.where("userId").is(userId).and("year").is(year));
+    }
+
+    private static Query yearQuery(String userId, int year) {
+        Criteria criteria = userId != null ? Criteria.where("userId").is(userId) : Criteria.where("userId").exists(true);
+        Query query = Query.query(criteria.and("date")
+                .gte(LocalDate.of(year, 1, 1))
+                .lte(LocalDate.of(year, 12, 31)));
+        query.fields().include(SOURCE_FIELDS);
+        return query;
+    }
+
+    private static String key(String userId, int year) {
+        return userId + ":" + year;
+    }
+}
@@ -0,0 +1,167 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.AttendanceFeedFilter;
+import com.empowerly.dto.AttendanceFeedItem;
+import com.empowerly.dto.AttendanceFeedPage;
+import com.empowerly.model.Attendance;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Org-wide attendance feed for HR. Records are ordered newest first by
+ * (date, _id) and paged with a keyset cursor, so every page is one bounded
+ * index range scan however deep the history goes; date range and department
+ * are served by the date_id and department_date indexes, the remaining filters
+ * narrow that range. Rows are projected to the feed fields only. The export
+ * streams the same query from a cursor instead of paging.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceFeedService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int CURSOR_BATCH_SIZE = 1000;
+    private static final String[] FEED_FIELDS = { "userId", "userName", "userEmail", "department", "date",
+            "checkInTime", "checkOutTime", "status", "attendanceStatus", "totalWorkHours", "isLate", "isOvertime" };
+
+    private final MongoTemplate mongoTemplate;
+
+    public AttendanceFeedPage getPage(AttendanceFeedFilter filter, String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        Query query = feedQuery(filter, cursor).limit(pageSize + 1);
+        List<AttendanceFeedItem> items = new ArrayList<>(
+                mongoTemplate.find(query, AttendanceFeedItem.class, collection()));
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            AttendanceFeedItem last = items.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getDate(), last.getId());
+        }
+        return new AttendanceFeedPage(items, nextCursor);
+    }
+
+    public void writeCsv(AttendanceFeedFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writer.write("date,userId,userName,userEmail,department,checkInTime,checkOutTime,status,"
+                + "attendanceStatus,totalWorkHours,isLate,isOvertime\n");
+
+        Query query = feedQuery(filter, null).cursorBatchSize(CURSOR_BATCH_SIZE);
+        try (Stream<AttendanceFeedItem> rows = mongoTemplate.stream(query, AttendanceFeedItem.class, collection())) {
+            for (AttendanceFeedItem row : (Iterable<AttendanceFeedItem>) rows::iterator) {
+                writer.write(value(row.getDate()) + ",");
+                writer.write(csv(row.getUserId()) + "," + csv(row.getUserName()) + "," + csv(row.getUserEmail()) + ",");
+                writer.write(value(row.getDepartment()) + ",");
+                writer.write(value(row.getCheckInTime()) + "," + value(row.getCheckOutTime()) + ",");
+                writer.write(csv(row.getStatus()) + "," + csv(row.getAttendanceStatus()) + ",");
+                writer.write(row.getTotalWorkHours() != null
+                        ? String.format(Locale.ROOT, "%.2f", row.getTotalWorkHours())
+                        : "");
+                writer.write("," + value(row.getIsLate()) + "," + value(row.getIsOvertime()));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private Query feedQuery(AttendanceFeedFilter filter, String cursor) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.getFrom() != null || filter.getTo() != null) {
+            Criteria date = Criteria.where("date");
+            if (filter.getFrom() != null) {
+                date = date.gte(filter.getFrom());
+            }
+            if (filter.getTo() != null) {
+                date = date.lte(filter.getTo());
+            }
+            criteria.add(date);
+        }
+        if (filter.getDepartment() != null) {
+            criteria.add(Criteria.where("department").is(filter.getDepartment()));
+        }
+        if (filter.getAttendanceStatus() != null) {
+            criteria.add(Criteria.where("attendanceStatus").is(filter.getAttendanceStatus()));
+        }
+        if (filter.getLate() != null) {
+            criteria.add(filter.getLate() ? Criteria.where("isLate").is(true) : Criteria.where("isLate").ne(true));
+        }
+        if (filter.getOvertime() != null) {
+            criteria.add(filter.getOvertime() ? Criteria.where("isOvertime").is(true)
+                    : Criteria.where("isOvertime").ne(true));
+        }
+        if (cursor != null) {
+            criteria.add(afterCursor(cursor));
+        }
+
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "date", "_id"));
+        query.fields().include(FEED_FIELDS);
+        return query;
+    }
+
+    /**
+     * Everything strictly after the cursor position in (date desc, _id desc) order.
+     */
+    private static Criteria afterCursor(String cursor) {
+        LocalDate date;
+        ObjectId id;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            date = LocalDate.parse(parts[0]);
+            id = new ObjectId(parts[1]);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        return new Criteria().orOperator(
+                Criteria.where("date").lt(date),
+                Criteria.where("date").is(date).and("_id").lt(id));
+    }
+
+    private static String encodeCursor(LocalDate date, String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(Attendance.class);
+    }
+
+    private static String value(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
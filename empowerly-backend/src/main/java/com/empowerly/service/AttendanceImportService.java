@@ -0,0 +1,376 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.AttendanceImportResult;
+import com.empowerly.model.Attendance;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports punch logs from badge readers and biometric terminals. The file is
+ * read line by line (CSV with a header row, or NDJSON) and written in chunks,
+ * so memory stays flat however long the file is. Within a chunk the punches
+ * are paired per (user, date): the earliest IN is the check-in, the latest OUT
+ * the check-out, and a punch without a direction counts as either. Existing
+ * records for those days are read with one query and merged, so a day split
+ * across chunks or imports still ends up with its first and last punch; the
+ * chunk is then written with one unordered bulk upsert on (userId, date).
+ * Leave days are never overwritten. Problems are reported per input line.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceImportService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserDirectory userDirectory;
+    private final AttendanceService attendanceService;
+    private final AttendanceBitmapService attendanceBitmapService;
+    private final ObjectMapper objectMapper;
+
+    public AttendanceImportResult importPunches(InputStream in, boolean ndjson) throws IOException {
+        AttendanceImportResult result = new AttendanceImportResult();
+        Set<LocalDate> dates = new HashSet<>();
+        List<Punch> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long line = 0;
+        Map<String, Integer> columns = null;
+        if (!ndjson) {
+            line++;
+            columns = csvColumns(reader.readLine());
+        }
+
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            result.setRowsRead(result.getRowsRead() + 1);
+            try {
+                chunk.add(ndjson ? jsonPunch(text, line) : csvPunch(text, columns, line));
+            } catch (RuntimeException e) {
+                reject(result, line, e.getMessage());
+                continue;
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                writeChunk(chunk, result, dates);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, result, dates);
+        }
+
+        if (!dates.isEmpty()) {
+            attendanceService.refreshAfterBulkWrite(dates);
+        }
+        logger.info("Imported punches: {} rows, {} records written, {} rows rejected", result.getRowsRead(),
+                result.getRecordsWritten(), result.getRowsRejected());
+        return result;
+    }
+
+    private void writeChunk(List<Punch> chunk, AttendanceImportResult result, Set<LocalDate> dates) {
+        Map<String, PunchDay> days = new LinkedHashMap<>();
+        for (Punch punch : chunk) {
+            days.computeIfAbsent(punch.userId() + "|" + punch.time().toLocalDate(),
+                    key -> new PunchDay(punch.userId(), punch.time().toLocalDate())).add(punch);
+        }
+
+        Map<String, UserDirectory.UserSummary> users = userDirectory.getAll(
+                days.values().stream().map(PunchDay::getUserId).distinct().toList());
+        Map<String, Attendance> existing = existingRecords(days.values());
+
+        List<PunchDay> written = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Attendance.class);
+        for (Map.Entry<String, PunchDay> entry : days.entrySet()) {
+            PunchDay day = entry.getValue();
+            UserDirectory.UserSummary user = users.get(day.getUserId());
+            Attendance current = existing.get(entry.getKey());
+            if (user == null) {
+                day.reject(result, "Unknown user " + day.getUserId());
+            } else if (current != null && "LEAVE".equals(current.getStatus())) {
+                day.reject(result, "User is on leave on " + day.getDate());
+            } else if (day.firstIn == null && (current == null || current.getCheckInTime() == null)) {
+                day.reject(result, "No IN punch for " + day.getDate());
+            } else {
+                bulk.upsert(Query.query(Criteria.where("userId").is(day.getUserId())
+                        .and("date").is(day.getDate())
+                        .and("status").ne("LEAVE")), merge(day, current, user));
+                day.recordId = current != null ? current.getId() : null;
+                written.add(day);
+            }
+        }
+        if (written.isEmpty()) {
+            return;
+        }
+
+        BulkWriteResult writeResult;
+        Set<Integer> failed = new HashSet<>();
+        try {
+            writeResult = bulk.execute();
+        } catch (BulkOperationException e) {
+            writeResult = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                written.get(error.getIndex()).reject(result, error.getCode() == DUPLICATE_KEY
+                        ? "Day was marked as leave or written concurrently; retry the row"
+                        : error.getMessage());
+            }
+        }
+
+        List<String> recordIds = new ArrayList<>();
+        for (BulkWriteUpsert upsert : writeResult.getUpserts()) {
+            written.get(upsert.getIndex()).recordId = upsert.getId().asObjectId().getValue().toHexString();
+        }
+        for (int index = 0; index < written.size(); index++) {
+            PunchDay day = written.get(index);
+            if (!failed.contains(index)) {
+                dates.add(day.getDate());
+                if (day.recordId != null) {
+                    recordIds.add(day.recordId);
+                }
+            }
+        }
+        attendanceBitmapService.applyAll(recordIds);
+        result.setRecordsWritten(result.getRecordsWritten() + written.size() - failed.size());
+    }
+
+    /**
+     * Current records for the chunk's days, with one query served by the
+     * (userId, date) index.
+     */
+    private Map<String, Attendance> existingRecords(Iterable<PunchDay> days) {
+        List<Criteria> keys = new ArrayList<>();
+        for (PunchDay day : days) {
+            keys.add(Criteria.where("userId").is(day.getUserId()).and("date").is(day.getDate()));
+        }
+        Query query = Query.query(new Criteria().orOperator(keys));
+        query.fields().include("userId", "date", "checkInTime", "checkOutTime", "status");
+
+        Map<String, Attendance> records = new HashMap<>();
+        for (Attendance record : mongoTemplate.find(query, Attendance.class)) {
+            records.put(record.getUserId() + "|" + record.getDate(), record);
+        }
+        return records;
+    }
+
+    /**
+     * The day's record with the imported punches folded in, every derived field
+     * recalculated by the same rules as a check-in and check-out.
+     */
+    private static Update merge(PunchDay day, Attendance current, UserDirectory.UserSummary user) {
+        LocalDateTime checkIn = earliest(current != null ? current.getCheckInTime() : null, day.firstIn);
+        LocalDateTime checkOut = latest(current != null ? current.getCheckOutTime() : null, day.lastOut);
+        if (checkOut != null && !checkOut.isAfter(checkIn)) {
+            checkOut = null; // a single punch opens the day
+        }
+
+        Attendance record = new Attendance();
+        record.setCheckInTime(checkIn);
+        record.setCheckOutTime(checkOut);
+        record.checkIfLate();
+        if (checkOut == null) {
+            record.setStatus("CHECKED_IN");
+            record.setAttendanceStatus("PRESENT");
+        } else {
+            record.setStatus("CHECKED_OUT");
+            record.calculateDuration();
+            record.calculateOvertime();
+            record.calculateAttendanceStatus();
+        }
+
+        return new Update()
+                .set("checkInTime", record.getCheckInTime())
+                .set("checkOutTime", record.getCheckOutTime())
+                .set("status", record.getStatus())
+                .set("attendanceStatus", record.getAttendanceStatus())
+                .set("isLate", record.getIsLate())
+                .set("durationMinutes", record.getDurationMinutes())
+                .set("totalWorkHours", record.getTotalWorkHours())
+                .set("isOvertime", record.getIsOvertime())
+                .set("overtimeMinutes", record.getOvertimeMinutes())
+                .setOnInsert("userName", user.getName())
+                .setOnInsert("userEmail", user.getEmail())
+                .setOnInsert("department", user.getDepartment())
+                .setOnInsert("createdAt", LocalDateTime.now());
+    }
+
+    // ==================== PARSING ====================
+
+    private static Map<String, Integer> csvColumns(String header) {
+        if (header == null) {
+            throw new RuntimeException("Empty file");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = header.split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            columns.put(unquote(names[i]).toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("userid") || !columns.containsKey("timestamp")) {
+            throw new RuntimeException("CSV header must contain userId and timestamp columns");
+        }
+        return columns;
+    }
+
+    private static Punch csvPunch(String text, Map<String, Integer> columns, long line) {
+        String[] cells = text.split(",", -1);
+        return punch(line, cell(cells, columns.get("userid")), cell(cells, columns.get("timestamp")),
+                cell(cells, columns.get("direction")));
+    }
+
+    private Punch jsonPunch(String text, long line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid JSON");
+        }
+        return punch(line, node.path("userId").asText(null), node.path("timestamp").asText(null),
+                node.path("direction").asText(null));
+    }
+
+    private static Punch punch(long line, String userId, String timestamp, String direction) {
+        if (userId == null || userId.isBlank()) {
+            throw new RuntimeException("Missing userId");
+        }
+        if (timestamp == null || timestamp.isBlank()) {
+            throw new RuntimeException("Missing timestamp");
+        }
+        Boolean in = null;
+        if (direction != null && !direction.isBlank()) {
+            switch (direction.trim().toUpperCase(Locale.ROOT)) {
+                case "IN" -> in = true;
+                case "OUT" -> in = false;
+                default -> throw new RuntimeException("Direction must be IN or OUT");
+            }
+        }
+        return new Punch(line, userId.trim(), parseTimestamp(timestamp.trim()), in);
+    }
+
+    /**
+     * ISO local date-time (a space instead of the T is accepted), or an ISO
+     * timestamp with offset, which is converted to server time.
+     */
+    private static LocalDateTime parseTimestamp(String timestamp) {
+        try {
+            return LocalDateTime.parse(timestamp.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            try {
+                return OffsetDateTime.parse(timestamp).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeParseException ignored) {
+                throw new RuntimeException("Invalid timestamp " + timestamp);
+            }
+        }
+    }
+
+    private static String cell(String[] cells, Integer column) {
+        return column != null && column < cells.length ? unquote(cells[column]) : null;
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        return trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")
+                ? trimmed.substring(1, trimmed.length() - 1)
+                : trimmed;
+    }
+
+    private static void reject(AttendanceImportResult result, long line, String message) {
+        result.setRowsRejected(result.getRowsRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new AttendanceImportResult.RowError(line, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static LocalDateTime earliest(LocalDateTime a, LocalDateTime b) {
+        return a == null ? b : b == null || a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a == null ? b : b == null || a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * {@code in} is true for an IN punch, false for OUT, null when the reader
+     * does not record a direction.
+     */
+    private record Punch(long line, String userId, LocalDateTime time, Boolean in) {
+    }
+
+    private static class PunchDay {
+        private final String userId;
+        private final LocalDate date;
+        private final List<Long> lines = new ArrayList<>();
+        private LocalDateTime firstIn;
+        private LocalDateTime lastOut;
+        private String recordId;
+
+        PunchDay(String userId, LocalDate date) {
+            this.userId = userId;
+            this.date = date;
+        }
+
+        void add(Punch punch) {
+            lines.add(punch.line());
+            if (!Boolean.FALSE.equals(punch.in())) {
+                firstIn = earliest(firstIn, punch.time());
+            }
+            if (!Boolean.TRUE.equals(punch.in())) {
+                lastOut = latest(lastOut, punch.time());
+            }
+        }
+
+        void reject(AttendanceImportResult result, String message) {
+            for (long line : lines) {
+                AttendanceImportService.reject(result, line, message);
+            }
+        }
+
+        String getUserId() {
+            return userId;
+        }
+
+        LocalDate getDate() {
+            return date;
+        }
+    }
+}
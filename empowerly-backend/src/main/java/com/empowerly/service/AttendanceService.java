@@ -1,21 +1,36 @@
 package com.empowerly.service;
 
 import com.empowerly.model.Attendance;
-import com.empowerly.model.User;
+import com.empowerly.model.AttendanceSummary;
 import com.empowerly.repository.AttendanceRepository;
-import com.empowerly.repository.UserRepository;
+import com.empowerly.service.AttendanceSummaryService.Contribution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -23,35 +38,55 @@ public class AttendanceService {
 
         private static final Logger logger = LoggerFactory.getLogger(AttendanceService.class);
 
+        // What an open record (checked in, not yet out) contributes to its monthly summary
+        private static final Contribution CHECKED_IN = new Contribution(1, 1, 0, 0, 0, 0, 0);
+
         @Autowired
         private AttendanceRepository attendanceRepository;
 
         @Autowired
-        private UserRepository userRepository;
+        private UserDirectory userDirectory;
 
-        @Transactional
-        public Attendance checkIn(String userId) {
-                User user = userRepository.findById(userId)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
+        @Autowired
+        private MongoTemplate mongoTemplate;
 
-                LocalDate today = LocalDate.now();
+        @Autowired
+        private AttendanceSummaryService attendanceSummaryService;
 
-                // Check if already checked in today (by date)
-                LocalDateTime startOfDay = LocalDateTime.of(today, LocalTime.MIN);
-                LocalDateTime endOfDay = LocalDateTime.of(today, LocalTime.MAX);
+        @Autowired
+        private JobLeaseService jobLeaseService;
 
-                List<Attendance> todayAttendance = attendanceRepository.findByUserAndCheckInTimeBetween(
-                                user, startOfDay, endOfDay);
+        @Autowired
+        private PresenceStatsService presenceStatsService;
 
-                if (!todayAttendance.isEmpty()) {
-                        throw new RuntimeException("Already checked in today. Please check out first.");
-                }
+        @Autowired
+        private AttendanceBitmapService attendanceBitmapService;
+
+        // Today's record per user (empty before check-in), written through on check-in
+        // and check-out; the short expiry bounds staleness across nodes
+        private final Cache<String, Optional<Attendance>> todayAttendanceCache = Caffeine.newBuilder()
+                        .maximumSize(50_000)
+                        .expireAfterWrite(Duration.ofMinutes(5))
+                        .build();
+
+        /**
+         * One conditional upsert on the unique (userId, date) key: the first tap of
+         * the day inserts the record, any later or concurrent tap matches it and is
+         * rejected without a second write.
+         */
+        public Attendance checkIn(String userId) {
+                LocalDate today = LocalDate.now();
+                UserDirectory.UserSummary user = userDirectory.get(userId);
 
                 Attendance attendance = new Attendance();
-                attendance.setUser(user);
+                attendance.setUserId(userId);
+                attendance.setUserName(user.getName());
+                attendance.setUserEmail(user.getEmail());
+                attendance.setDepartment(user.getDepartment());
                 attendance.setDate(today);
                 attendance.setCheckInTime(LocalDateTime.now());
                 attendance.setStatus("CHECKED_IN");
+                attendance.setCreatedAt(attendance.getCheckInTime());
 
                 // Check if late
                 attendance.checkIfLate();
@@ -59,84 +94,88 @@ public class AttendanceService {
                 // Set initial attendance status
                 attendance.setAttendanceStatus("PRESENT");
 
-                Attendance saved = attendanceRepository.save(attendance);
+                Update update = new Update()
+                                .setOnInsert("userName", attendance.getUserName())
+                                .setOnInsert("userEmail", attendance.getUserEmail())
+                                .setOnInsert("department", attendance.getDepartment())
+                                .setOnInsert("checkInTime", attendance.getCheckInTime())
+                                .setOnInsert("status", attendance.getStatus())
+                                .setOnInsert("isLate", attendance.getIsLate())
+                                .setOnInsert("attendanceStatus", attendance.getAttendanceStatus())
+                                .setOnInsert("createdAt", attendance.getCreatedAt());
+
+                UpdateResult result;
+                try {
+                        result = mongoTemplate.upsert(todayQuery(userId, today), update, Attendance.class);
+                } catch (DuplicateKeyException e) {
+                        // A concurrent tap inserted first
+                        result = null;
+                }
+                if (result == null || result.getUpsertedId() == null) {
+                        throw new RuntimeException("Already checked in today. Please check out first.");
+                }
+
+                attendance.setId(result.getUpsertedId().asObjectId().getValue().toHexString());
+                todayAttendanceCache.put(todayKey(userId, today), Optional.of(attendance));
+                attendanceSummaryService.apply(attendance, Contribution.NONE, Contribution.of(attendance));
+                presenceStatsService.checkedIn(attendance);
+                attendanceBitmapService.apply(attendance);
                 logger.info("User checked in: {} at {} (Late: {})",
-                                user.getEmail(), saved.getCheckInTime(), saved.getIsLate());
+                                userId, attendance.getCheckInTime(), attendance.getIsLate());
 
-                return saved;
+                return attendance;
         }
 
-        @Transactional
+        /**
+         * Closes today's record with one findAndModify whose pipeline derives
+         * duration, overtime and final status from the stored check-in time.
+         */
         public Attendance checkOut(String userId) {
-                User user = userRepository.findById(userId)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
-
-                // Find today's active check-in
                 LocalDate today = LocalDate.now();
-                LocalDateTime startOfDay = LocalDateTime.of(today, LocalTime.MIN);
-                LocalDateTime endOfDay = LocalDateTime.of(today, LocalTime.MAX);
 
-                List<Attendance> todayAttendance = attendanceRepository.findByUserAndCheckInTimeBetween(
-                                user, startOfDay, endOfDay);
+                Query query = todayQuery(userId, today);
+                query.addCriteria(Criteria.where("checkOutTime").is(null));
 
-                if (todayAttendance.isEmpty()) {
-                        throw new RuntimeException("No check-in found for today. Please check in first.");
-                }
-
-                Attendance attendance = todayAttendance.get(0);
+                Attendance saved = mongoTemplate.findAndModify(query, checkoutUpdate(LocalDateTime.now()),
+                                FindAndModifyOptions.options().returnNew(true), Attendance.class);
 
-                if (attendance.getCheckOutTime() != null) {
-                        throw new RuntimeException("Already checked out for today.");
+                if (saved == null) {
+                        if (mongoTemplate.exists(todayQuery(userId, today), Attendance.class)) {
+                                throw new RuntimeException("Already checked out for today.");
+                        }
+                        throw new RuntimeException("No check-in found for today. Please check in first.");
                 }
 
-                attendance.setCheckOutTime(LocalDateTime.now());
-                attendance.setStatus("CHECKED_OUT");
-
-                // Calculate duration and work hours
-                attendance.calculateDuration();
-
-                // Calculate overtime
-                attendance.calculateOvertime();
-
-                // Calculate final attendance status
-                attendance.calculateAttendanceStatus();
-
-                Attendance saved = attendanceRepository.save(attendance);
+                todayAttendanceCache.put(todayKey(userId, today), Optional.of(saved));
+                attendanceSummaryService.apply(saved, CHECKED_IN, Contribution.of(saved));
+                presenceStatsService.checkedOut(saved);
+                attendanceBitmapService.apply(saved);
                 logger.info("User checked out: {} at {} (Duration: {} hours, Status: {}, Overtime: {})",
-                                user.getEmail(), saved.getCheckOutTime(), saved.getTotalWorkHours(),
+                                userId, saved.getCheckOutTime(), saved.getTotalWorkHours(),
                                 saved.getAttendanceStatus(), saved.getIsOvertime());
 
                 return saved;
         }
 
         public List<Attendance> getUserAttendanceHistory(String userId) {
-                User user = userRepository.findById(userId)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
+                userDirectory.get(userId);
 
-                return attendanceRepository.findByUserOrderByCheckInTimeDesc(user);
+                return attendanceRepository.findByUserIdOrderByCheckInTimeDesc(userId);
         }
 
         public List<Attendance> getUserAttendanceForMonth(String userId, int year, int month) {
-                User user = userRepository.findById(userId)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
+                userDirectory.get(userId);
 
                 LocalDateTime startOfMonth = LocalDateTime.of(year, month, 1, 0, 0);
                 LocalDateTime endOfMonth = startOfMonth.plusMonths(1).minusSeconds(1);
 
-                return attendanceRepository.findByUserAndCheckInTimeBetween(user, startOfMonth, endOfMonth);
+                return attendanceRepository.findByUserIdAndCheckInTimeBetween(userId, startOfMonth, endOfMonth);
         }
 
         public Optional<Attendance> getTodayAttendance(String userId) {
-                User user = userRepository.findById(userId)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
-
-                LocalDateTime startOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-                LocalDateTime endOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-
-                List<Attendance> todayAttendance = attendanceRepository.findByUserAndCheckInTimeBetween(
-                                user, startOfDay, endOfDay);
-
-                return todayAttendance.isEmpty() ? Optional.empty() : Optional.of(todayAttendance.get(0));
+                LocalDate today = LocalDate.now();
+                return todayAttendanceCache.get(todayKey(userId, today),
+                                key -> Optional.ofNullable(mongoTemplate.findOne(todayQuery(userId, today), Attendance.class)));
         }
 
         public String getAttendanceStatus(String userId) {
@@ -149,49 +188,13 @@ public class AttendanceService {
                 return "CHECKED_OUT";
         }
 
+        /**
+         * Totals over a date range, read from the monthly summaries.
+         */
         public Map<String, Object> getAttendanceReport(String userId, LocalDate startDate, LocalDate endDate) {
-                User user = userRepository.findById(userId)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
-
-                LocalDateTime start = LocalDateTime.of(startDate, LocalTime.MIN);
-                LocalDateTime end = LocalDateTime.of(endDate, LocalTime.MAX);
-
-                List<Attendance> attendanceList = attendanceRepository.findByUserAndCheckInTimeBetween(user, start,
-                                end);
-
-                Map<String, Object> report = new HashMap<>();
-                report.put("attendanceRecords", attendanceList);
-                report.put("totalDays", attendanceList.size());
-
-                long presentDays = attendanceList.stream()
-                                .filter(a -> "PRESENT".equals(a.getAttendanceStatus()))
-                                .count();
-
-                long lateDays = attendanceList.stream()
-                                .filter(a -> "LATE".equals(a.getAttendanceStatus()))
-                                .count();
+                userDirectory.get(userId);
 
-                long halfDays = attendanceList.stream()
-                                .filter(a -> "HALF_DAY".equals(a.getAttendanceStatus()))
-                                .count();
-
-                double totalWorkingHours = attendanceList.stream()
-                                .filter(a -> a.getTotalWorkHours() != null)
-                                .mapToDouble(Attendance::getTotalWorkHours)
-                                .sum();
-
-                long totalOvertimeMinutes = attendanceList.stream()
-                                .filter(a -> a.getOvertimeMinutes() != null)
-                                .mapToLong(Attendance::getOvertimeMinutes)
-                                .sum();
-
-                report.put("totalPresentDays", presentDays);
-                report.put("totalLateDays", lateDays);
-                report.put("totalHalfDays", halfDays);
-                report.put("totalWorkingHours", totalWorkingHours);
-                report.put("totalOvertimeHours", totalOvertimeMinutes / 60.0);
-
-                return report;
+                return toReport(attendanceSummaryService.totals(userId, startDate, endDate));
         }
 
         public Map<String, Object> getMonthlyStats(String userId, int year, int month) {
@@ -201,69 +204,128 @@ public class AttendanceService {
                 return getAttendanceReport(userId, startDate, endDate);
         }
 
-        public List<Map<String, Object>> getAllAttendanceWithUserDetails() {
-                List<Attendance> allAttendance = attendanceRepository.findAll();
-
-                return allAttendance.stream().map(attendance -> {
-                        Map<String, Object> attendanceMap = new HashMap<>();
-                        User user = attendance.getUser();
-
-                        attendanceMap.put("id", attendance.getId());
-                        attendanceMap.put("date", attendance.getDate());
-                        attendanceMap.put("checkInTime", attendance.getCheckInTime());
-                        attendanceMap.put("checkOutTime", attendance.getCheckOutTime());
-                        attendanceMap.put("status", attendance.getStatus());
-                        attendanceMap.put("attendanceStatus", attendance.getAttendanceStatus());
-                        attendanceMap.put("totalWorkHours", attendance.getTotalWorkHours());
-                        attendanceMap.put("isLate", attendance.getIsLate());
-                        attendanceMap.put("isOvertime", attendance.getIsOvertime());
-
-                        // Add user details
-                        if (user != null) {
-                                attendanceMap.put("userName", user.getName());
-                                attendanceMap.put("userEmail", user.getEmail());
-                                attendanceMap.put("department",
-                                                user.getDepartment() != null ? user.getDepartment().toString() : "N/A");
-                        } else {
-                                attendanceMap.put("userName", "N/A");
-                                attendanceMap.put("userEmail", "N/A");
-                                attendanceMap.put("department", "N/A");
-                        }
+        /**
+         * Monthly totals for the whole organization and per employee, from one
+         * read of the month's summaries.
+         */
+        public Map<String, Object> getOrganizationMonthlyStats(int year, int month) {
+                List<AttendanceSummary> summaries = attendanceSummaryService.findMonth(YearMonth.of(year, month));
 
-                        return attendanceMap;
-                }).toList();
+                Contribution totals = Contribution.NONE;
+                for (AttendanceSummary summary : summaries) {
+                        totals = totals.plus(Contribution.of(summary));
+                }
+
+                Map<String, Object> stats = toReport(totals);
+                stats.put("year", year);
+                stats.put("month", month);
+                stats.put("employeeCount", summaries.size());
+                stats.put("employees", summaries);
+                return stats;
         }
 
         @org.springframework.scheduling.annotation.Scheduled(cron = "0 0 0 * * ?")
-        @Transactional
         public void autoCheckoutAtMidnight() {
                 logger.info("Running automatic checkout task at midnight");
-                List<Attendance> checkedInUsers = attendanceRepository.findByStatus("CHECKED_IN");
+                jobLeaseService.runExclusively("attendance-auto-checkout", Duration.ofMinutes(30), Duration.ofMinutes(5),
+                                this::checkOutOpenRecords);
+        }
 
-                for (Attendance attendance : checkedInUsers) {
-                        try {
-                                attendance.setCheckOutTime(LocalDateTime.now());
-                                attendance.setStatus("CHECKED_OUT");
+        /**
+         * Closes every open record with one updateMany running the checkout
+         * pipeline, then refreshes the bitmaps of those records and the summaries
+         * of the months they fall in. Returns the number of records checked out.
+         */
+        public long checkOutOpenRecords() {
+                Query open = Query.query(Criteria.where("status").is("CHECKED_IN"));
+                List<LocalDate> openDates = mongoTemplate.findDistinct(open, "date", Attendance.class, LocalDate.class);
+                if (openDates.isEmpty()) {
+                        return 0;
+                }
+                List<String> openIds = mongoTemplate.findDistinct(open, "_id", Attendance.class, ObjectId.class)
+                                .stream()
+                                .map(ObjectId::toHexString)
+                                .toList();
+
+                UpdateResult result = mongoTemplate.updateMulti(open, checkoutUpdate(LocalDateTime.now()),
+                                Attendance.class);
+                attendanceBitmapService.applyAll(openIds);
+                refreshAfterBulkWrite(openDates);
+
+                logger.info("Auto-checked out {} open attendance records", result.getModifiedCount());
+                return result.getModifiedCount();
+        }
 
-                                // Calculate duration and work hours
-                                attendance.calculateDuration();
+        /**
+         * Brings caches, live counters and monthly summaries in line after
+         * attendance records on the given dates were written in bulk, bypassing
+         * the per-record hooks.
+         */
+        public void refreshAfterBulkWrite(Collection<LocalDate> dates) {
+                todayAttendanceCache.invalidateAll();
+                presenceStatsService.resync();
+
+                // Per-record deltas are not known after a bulk update, so recount the affected months
+                dates.stream()
+                                .filter(Objects::nonNull)
+                                .map(YearMonth::from)
+                                .distinct()
+                                .forEach(attendanceSummaryService::rebuild);
+        }
+
+        private static Map<String, Object> toReport(Contribution totals) {
+                Map<String, Object> report = new HashMap<>();
+                // Days attended, as before summaries: leave days are the only records without a check-in
+                report.put("totalDays", totals.recordedDays() - totals.leaveDays());
+                report.put("totalPresentDays", totals.presentDays());
+                report.put("totalLateDays", totals.lateDays());
+                report.put("totalHalfDays", totals.halfDays());
+                report.put("totalLeaveDays", totals.leaveDays());
+                report.put("totalWorkingHours", totals.workMinutes() / 60.0);
+                report.put("totalOvertimeHours", totals.overtimeMinutes() / 60.0);
+                return report;
+        }
 
-                                // Calculate overtime
-                                attendance.calculateOvertime();
+        private static Query todayQuery(String userId, LocalDate date) {
+                return Query.query(Criteria.where("userId").is(userId).and("date").is(date));
+        }
 
-                                // Calculate final attendance status
-                                attendance.calculateAttendanceStatus();
+        private static String todayKey(String userId, LocalDate date) {
+                return userId + ":" + date;
+        }
 
-                                // Mark as auto-checked out (optional log info)
-                                logger.info("Auto-checking out user: {} (ID: {})",
-                                                attendance.getUser() != null ? attendance.getUser().getEmail()
-                                                                : "Unknown",
-                                                attendance.getId());
+        /**
+         * Pipeline update mirroring calculateDuration, calculateOvertime and
+         * calculateAttendanceStatus, so a checkout needs no prior read.
+         */
+        private AggregationUpdate checkoutUpdate(LocalDateTime checkOutTime) {
+                Object now = mongoTemplate.getConverter().convertToMongoType(checkOutTime);
+                Document overtime = new Document("$gt", List.of("$totalWorkHours", 8.0));
+
+                return AggregationUpdate.from(List.<AggregationOperation>of(
+                                context -> new Document("$set", new Document("checkOutTime", now)
+                                                .append("status", "CHECKED_OUT")
+                                                .append("durationMinutes", new Document("$toLong",
+                                                                new Document("$trunc", new Document("$divide", List.of(
+                                                                                new Document("$subtract", List.of(now, "$checkInTime")),
+                                                                                60_000)))))),
+                                context -> new Document("$set", new Document("totalWorkHours",
+                                                new Document("$divide", List.of("$durationMinutes", 60.0)))),
+                                context -> new Document("$set", new Document("isOvertime", overtime)
+                                                .append("overtimeMinutes", new Document("$cond", List.of(overtime,
+                                                                new Document("$toLong", new Document("$multiply", List.of(
+                                                                                new Document("$subtract", List.of("$totalWorkHours", 8.0)),
+                                                                                60))),
+                                                                0L)))
+                                                .append("attendanceStatus", new Document("$switch", new Document("branches", List.of(
+                                                                statusBranch(new Document("$eq", List.of("$checkInTime", null)), "ABSENT"),
+                                                                statusBranch(new Document("$eq", List.of("$totalWorkHours", 0)), "PRESENT"),
+                                                                statusBranch(new Document("$lt", List.of("$totalWorkHours", 4.0)), "HALF_DAY"),
+                                                                statusBranch(new Document("$eq", List.of("$isLate", true)), "LATE")))
+                                                                .append("default", "PRESENT"))))));
+        }
 
-                                attendanceRepository.save(attendance);
-                        } catch (Exception e) {
-                                logger.error("Error checking out user during auto-checkout: " + attendance.getId(), e);
-                        }
-                }
+        private static Document statusBranch(Document condition, String status) {
+                return new Document("case", condition).append("then", status);
         }
 }
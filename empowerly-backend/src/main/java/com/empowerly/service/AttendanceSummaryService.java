@@ -0,0 +1,303 @@
+package com.empowerly.service;
+
+import com.empowerly.model.Attendance;
+import com.empowerly.model.AttendanceSummary;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-user monthly attendance summaries. Every attendance write reports the
+ * record's contribution before and after, and the difference is applied to the
+ * month's summary with one {@code $inc} upsert; reports then read a handful of
+ * summary documents instead of scanning raw attendance. A summary can always be
+ * rebuilt from the attendance collection with one aggregation, which also runs
+ * nightly for the current and previous month to absorb any missed update.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceSummaryService.class);
+
+    // LocalDate values are stored as midnight in the JVM zone, so months are cut in that zone
+    private static final String TIME_ZONE = ZoneId.systemDefault().getId();
+
+    private final MongoTemplate mongoTemplate;
+    private final JobLeaseService jobLeaseService;
+
+    /**
+     * Applies the change of one attendance record to its month's summary. A
+     * failure is logged rather than thrown: the attendance write already
+     * happened, and the nightly rebuild corrects the summary.
+     */
+    public void apply(Attendance record, Contribution before, Contribution after) {
+        Contribution delta = after.minus(before);
+        if (record.getUserId() == null || record.getDate() == null || delta.isZero()) {
+            return;
+        }
+
+        Update update = new Update()
+                .inc("recordedDays", delta.recordedDays())
+                .inc("presentDays", delta.presentDays())
+                .inc("lateDays", delta.lateDays())
+                .inc("halfDays", delta.halfDays())
+                .inc("leaveDays", delta.leaveDays())
+                .inc("workMinutes", delta.workMinutes())
+                .inc("overtimeMinutes", delta.overtimeMinutes())
+                .set("updatedAt", LocalDateTime.now());
+        if (record.getUserName() != null) {
+            update.set("userName", record.getUserName());
+        }
+        if (record.getDepartment() != null) {
+            update.set("department", record.getDepartment());
+        }
+
+        Query query = periodQuery(record.getUserId(), YearMonth.from(record.getDate()));
+        try {
+            try {
+                mongoTemplate.upsert(query, update, AttendanceSummary.class);
+            } catch (DuplicateKeyException e) {
+                // A concurrent first write for the month inserted it; now it matches
+                mongoTemplate.upsert(query, update, AttendanceSummary.class);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not update attendance summary for user {} ({}): {}", record.getUserId(),
+                    YearMonth.from(record.getDate()), e.getMessage());
+        }
+    }
+
+    /**
+     * Totals of one user over a date range: whole months come from the
+     * summaries, the partial months at either end from one aggregation over
+     * just those days.
+     */
+    public Contribution totals(String userId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return Contribution.NONE;
+        }
+
+        Set<YearMonth> wholeMonths = new HashSet<>();
+        List<Criteria> partialRanges = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month
+                .plusMonths(1)) {
+            LocalDate from = startDate.isAfter(month.atDay(1)) ? startDate : month.atDay(1);
+            LocalDate to = endDate.isBefore(month.atEndOfMonth()) ? endDate : month.atEndOfMonth();
+            if (from.equals(month.atDay(1)) && to.equals(month.atEndOfMonth())) {
+                wholeMonths.add(month);
+            } else {
+                partialRanges.add(Criteria.where("date").gte(from).lte(to));
+            }
+        }
+
+        Contribution totals = Contribution.NONE;
+        if (!wholeMonths.isEmpty()) {
+            Query query = Query.query(Criteria.where("userId").is(userId)
+                    .and("year").gte(startDate.getYear()).lte(endDate.getYear()));
+            for (AttendanceSummary summary : mongoTemplate.find(query, AttendanceSummary.class)) {
+                if (wholeMonths.contains(YearMonth.of(summary.getYear(), summary.getMonth()))) {
+                    totals = totals.plus(Contribution.of(summary));
+                }
+            }
+        }
+        if (!partialRanges.isEmpty()) {
+            TypedAggregation<?> aggregation = Aggregation.newAggregation(Attendance.class,
+                    Aggregation.match(Criteria.where("userId").is(userId).orOperator(partialRanges)),
+                    context -> contributionGroup(null));
+            Document row = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+            if (row != null) {
+                totals = totals.plus(Contribution.of(row));
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Every user's summary for a month, read from the period index.
+     */
+    public List<AttendanceSummary> findMonth(YearMonth month) {
+        Query query = Query.query(Criteria.where("year").is(month.getYear()).and("month").is(month.getMonthValue()))
+                .with(Sort.by("userName"));
+        return mongoTemplate.find(query, AttendanceSummary.class);
+    }
+
+    public void deleteForUser(String userId) {
+        mongoTemplate.remove(Query.query(Criteria.where("userId").is(userId)), AttendanceSummary.class);
+    }
+
+    @Scheduled(cron = "0 15 3 * * *")
+    public void rebuildRecentMonths() {
+        jobLeaseService.runExclusively("attendance-summary-rebuild", Duration.ofMinutes(30), Duration.ofMinutes(5),
+                () -> {
+                    YearMonth current = YearMonth.now();
+                    rebuild(current.minusMonths(1));
+                    rebuild(current);
+                });
+    }
+
+    /**
+     * Recomputes the summaries of one month, or of all history when
+     * {@code month} is null, from the attendance collection and returns how many
+     * summaries the period now has. Increments that land while the aggregation
+     * runs may be overwritten; the next rebuild picks them up.
+     */
+    public long rebuild(YearMonth month) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Criteria scope = Criteria.where("userId").exists(true);
+        scope = month != null
+                ? scope.and("date").gte(month.atDay(1)).lte(month.atEndOfMonth())
+                : scope.and("date").exists(true);
+
+        Document period = new Document("userId", "$userId")
+                .append("year", new Document("$year", zoned("$date")))
+                .append("month", new Document("$month", zoned("$date")));
+        Document projection = new Document("_id", 0)
+                .append("userId", "$_id.userId")
+                .append("year", "$_id.year")
+                .append("month", "$_id.month")
+                .append("updatedAt", mongoTemplate.getConverter().convertToMongoType(startedAt));
+        for (String field : List.of("userName", "department", "recordedDays", "presentDays", "lateDays",
+                "halfDays", "leaveDays", "workMinutes", "overtimeMinutes")) {
+            projection.append(field, 1);
+        }
+        Document group = contributionGroup(period);
+        group.get("$group", Document.class)
+                .append("userName", new Document("$last", "$userName"))
+                .append("department", new Document("$last", "$department"));
+
+        TypedAggregation<?> aggregation = Aggregation.newAggregation(Attendance.class,
+                Aggregation.match(scope),
+                context -> group,
+                context -> new Document("$project", projection),
+                context -> new Document("$merge", new Document("into",
+                        mongoTemplate.getCollectionName(AttendanceSummary.class))
+                        .append("on", List.of("userId", "year", "month"))
+                        .append("whenMatched", "replace")
+                        .append("whenNotMatched", "insert")));
+        mongoTemplate.aggregate(aggregation, Document.class);
+
+        // Summaries the aggregation did not touch have no attendance left
+        Query inPeriod = month != null
+                ? Query.query(Criteria.where("year").is(month.getYear()).and("month").is(month.getMonthValue()))
+                : new Query();
+        mongoTemplate.remove(Query.of(inPeriod).addCriteria(Criteria.where("updatedAt").lt(startedAt)),
+                AttendanceSummary.class);
+
+        long summaries = mongoTemplate.count(inPeriod, AttendanceSummary.class);
+        logger.info("Rebuilt attendance summaries for {}: {} summaries", month != null ? month : "all months",
+                summaries);
+        return summaries;
+    }
+
+    private static Query periodQuery(String userId, YearMonth month) {
+        return Query.query(Criteria.where("userId").is(userId)
+                .and("year").is(month.getYear())
+                .and("month").is(month.getMonthValue()));
+    }
+
+    private static Document zoned(String dateField) {
+        return new Document("date", dateField).append("timezone", TIME_ZONE);
+    }
+
+    /**
+     * Same rules as {@link Contribution#of(Attendance)}, as a {@code $group} stage.
+     */
+    private static Document contributionGroup(Object groupKey) {
+        return new Document("$group", new Document("_id", groupKey)
+                .append("recordedDays", new Document("$sum", 1))
+                .append("presentDays", countWhereStatus("PRESENT"))
+                .append("lateDays", countWhereStatus("LATE"))
+                .append("halfDays", countWhereStatus("HALF_DAY"))
+                .append("leaveDays", countWhereStatus("LEAVE"))
+                .append("workMinutes", new Document("$sum", new Document("$ifNull", List.of("$durationMinutes", 0L))))
+                .append("overtimeMinutes",
+                        new Document("$sum", new Document("$ifNull", List.of("$overtimeMinutes", 0L)))));
+    }
+
+    private static Document countWhereStatus(String status) {
+        return new Document("$sum", new Document("$cond",
+                List.of(new Document("$eq", List.of("$attendanceStatus", status)), 1, 0)));
+    }
+
+    /**
+     * What one attendance record, or a set of them, adds to a summary.
+     */
+    public record Contribution(int recordedDays, int presentDays, int lateDays, int halfDays, int leaveDays,
+            long workMinutes, long overtimeMinutes) {
+
+        public static final Contribution NONE = new Contribution(0, 0, 0, 0, 0, 0, 0);
+
+        public static Contribution of(Attendance attendance) {
+            if (attendance == null) {
+                return NONE;
+            }
+            String status = attendance.getAttendanceStatus();
+            return new Contribution(1,
+                    "PRESENT".equals(status) ? 1 : 0,
+                    "LATE".equals(status) ? 1 : 0,
+                    "HALF_DAY".equals(status) ? 1 : 0,
+                    "LEAVE".equals(status) ? 1 : 0,
+                    attendance.getDurationMinutes() != null ? attendance.getDurationMinutes() : 0,
+                    attendance.getOvertimeMinutes() != null ? attendance.getOvertimeMinutes() : 0);
+        }
+
+        static Contribution of(AttendanceSummary summary) {
+            return new Contribution(summary.getRecordedDays(), summary.getPresentDays(), summary.getLateDays(),
+                    summary.getHalfDays(), summary.getLeaveDays(), summary.getWorkMinutes(),
+                    summary.getOvertimeMinutes());
+        }
+
+        private static Contribution of(Document row) {
+            return new Contribution(intValue(row, "recordedDays"), intValue(row, "presentDays"),
+                    intValue(row, "lateDays"), intValue(row, "halfDays"), intValue(row, "leaveDays"),
+                    longValue(row, "workMinutes"), longValue(row, "overtimeMinutes"));
+        }
+
+        public Contribution plus(Contribution other) {
+            return new Contribution(recordedDays + other.recordedDays, presentDays + other.presentDays,
+                    lateDays + other.lateDays, halfDays + other.halfDays, leaveDays + other.leaveDays,
+                    workMinutes + other.workMinutes, overtimeMinutes + other.overtimeMinutes);
+        }
+
+        public Contribution minus(Contribution other) {
+            return new Contribution(recordedDays - other.recordedDays, presentDays - other.presentDays,
+                    lateDays - other.lateDays, halfDays - other.halfDays, leaveDays - other.leaveDays,
+                    workMinutes - other.workMinutes, overtimeMinutes - other.overtimeMinutes);
+        }
+
+        public boolean isZero() {
+            return equals(NONE);
+        }
+
+        private static int intValue(Document row, String field) {
+            Object value = row.get(field);
+            return value instanceof Number number ? number.intValue() : 0;
+        }
+
+        private static long longValue(Document row, String field) {
+            Object value = row.get(field);
+            return value instanceof Number number ? number.longValue() : 0;
+        }
+    }
+}
@@ -37,6 +37,9 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private PresenceStatsService presenceStatsService;
+
     @Transactional
     public String signup(SignupRequest request) {
         // Check if user already exists
@@ -56,6 +59,7 @@ public class AuthService {
         user.setActive(true);
 
         userRepository.save(user);
+        presenceStatsService.userCreated(user.getRole());
         logger.info("User created (unverified): {}", user.getEmail());
 
         // Generate and send OTP
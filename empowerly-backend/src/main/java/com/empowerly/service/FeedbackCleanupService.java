@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -15,12 +16,20 @@ public class FeedbackCleanupService {
     @Autowired
     private FeedbackRepository feedbackRepository;
 
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
     /**
      * Scheduled task to hide old feedback from employees
      * Runs daily at 12:01 AM
      */
     @Scheduled(cron = "0 1 0 * * *")
     public void hideOldFeedback() {
+        jobLeaseService.runExclusively("feedback-auto-hide", Duration.ofMinutes(30), Duration.ofMinutes(5),
+                this::hideOldFeedbackOnce);
+    }
+
+    private void hideOldFeedbackOnce() {
         LocalDateTime now = LocalDateTime.now();
 
         // Find all feedback where autoHideDate has passed and still visible to
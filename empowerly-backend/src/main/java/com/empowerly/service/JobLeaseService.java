@@ -0,0 +1,76 @@
+package com.empowerly.service;
+
+import com.empowerly.model.JobLease;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Makes a scheduled job run on one node per trigger. Every node fires the same
+ * {@code @Scheduled} method; the first to take the job's lease document runs
+ * it, the others skip. Taking the lease is a single upsert that only matches an
+ * expired lease, so losing the race surfaces as a duplicate key on the job
+ * name. A lease expires on its own after {@code lockAtMostFor} if its holder
+ * dies, and is held for at least {@code lockAtLeastFor} so nodes whose clocks
+ * fire slightly later do not run the job a second time.
+ */
+@Service
+@RequiredArgsConstructor
+public class JobLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseService.class);
+
+    private static final String NODE_ID = ManagementFactory.getRuntimeMXBean().getName() + "/"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Runs {@code task} if this node gets the lease; returns whether it ran.
+     */
+    public boolean runExclusively(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        LocalDateTime lockedAt = LocalDateTime.now();
+        if (!acquire(jobName, lockedAt, lockAtMostFor)) {
+            logger.debug("Skipping {}: lease held by another node", jobName);
+            return false;
+        }
+        try {
+            task.run();
+            return true;
+        } finally {
+            release(jobName, lockedAt.plus(lockAtLeastFor));
+        }
+    }
+
+    private boolean acquire(String jobName, LocalDateTime now, Duration lockAtMostFor) {
+        Query expired = Query.query(Criteria.where("_id").is(jobName).and("lockedUntil").lte(now));
+        Update lease = new Update()
+                .set("owner", NODE_ID)
+                .set("lockedAt", now)
+                .set("lockedUntil", now.plus(lockAtMostFor));
+        try {
+            mongoTemplate.upsert(expired, lease, JobLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void release(String jobName, LocalDateTime earliestUnlock) {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobName).and("owner").is(NODE_ID)),
+                new Update().set("lockedUntil", now.isAfter(earliestUnlock) ? now : earliestUnlock),
+                JobLease.class);
+    }
+}
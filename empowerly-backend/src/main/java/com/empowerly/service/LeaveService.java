@@ -5,28 +5,44 @@ import com.empowerly.model.Attendance;
 import com.empowerly.model.Leave;
 import com.empowerly.model.LeaveBalance;
 import com.empowerly.model.User;
-import com.empowerly.repository.AttendanceRepository;
 import com.empowerly.repository.LeaveBalanceRepository;
 import com.empowerly.repository.LeaveRepository;
 import com.empowerly.repository.UserRepository;
+import com.empowerly.service.AttendanceSummaryService.Contribution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class LeaveService {
 
     private static final Logger logger = LoggerFactory.getLogger(LeaveService.class);
 
+    private static final int DUPLICATE_KEY = 11000;
+
     @Autowired
     private LeaveRepository leaveRepository;
 
@@ -37,12 +53,26 @@ public class LeaveService {
     private LeaveBalanceRepository leaveBalanceRepository;
 
     @Autowired
-    private AttendanceRepository attendanceRepository;
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
+
+    @Autowired
+    private PresenceStatsService presenceStatsService;
+
+    @Autowired
+    private AttendanceBitmapService attendanceBitmapService;
+
+    @Autowired
+    private WorkingDayCalendar workingDayCalendar;
 
     @Transactional
     public Leave applyLeave(String userId, LeaveRequest request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        UserDirectory.UserSummary user = userDirectory.get(userId);
 
         // Validate dates
         if (request.getEndDate().isBefore(request.getStartDate())) {
@@ -50,24 +80,30 @@ public class LeaveService {
         }
 
         // Check for overlapping leaves
-        if (hasOverlappingLeaves(user, request.getStartDate(), request.getEndDate())) {
+        if (leaveRepository.existsOverlapping(userId, request.getStartDate(), request.getEndDate())) {
             throw new RuntimeException("You already have a leave request for these dates");
         }
 
         Leave leave = new Leave();
-        leave.setEmployee(user);
+        leave.setEmployeeId(userId);
+        leave.setEmployeeName(user.getName());
+        leave.setEmployeeEmail(user.getEmail());
+        leave.setDepartment(user.getDepartment());
         leave.setLeaveType(request.getLeaveType() != null ? request.getLeaveType() : Leave.LeaveType.CASUAL_LEAVE);
         leave.setStartDate(request.getStartDate());
         leave.setEndDate(request.getEndDate());
         leave.setReason(request.getReason());
         leave.setStatus(Leave.LeaveStatus.PENDING);
 
-        // Calculate duration
-        leave.calculateDuration();
+        // Only working days are taken from the balance and marked on approval
+        leave.setNumberOfDays(workingDayCalendar.workingDays(request.getStartDate(), request.getEndDate()).size());
+        if (leave.getNumberOfDays() == 0) {
+            throw new RuntimeException("Leave must include at least one working day");
+        }
 
         // Get or create leave balance for current year
         int currentYear = LocalDate.now().getYear();
-        LeaveBalance balance = getOrCreateLeaveBalance(user, currentYear);
+        LeaveBalance balance = getOrCreateLeaveBalance(userId, currentYear);
 
         // Check if sufficient leave available
         if (!balance.hasAvailableLeave(leave.getLeaveType(), leave.getNumberOfDays())) {
@@ -84,10 +120,9 @@ public class LeaveService {
     }
 
     public List<Leave> getMyLeaves(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userDirectory.get(userId);
 
-        return leaveRepository.findByEmployeeOrderByCreatedAtDesc(user);
+        return leaveRepository.findByEmployeeIdOrderByCreatedAtDesc(userId);
     }
 
     public List<Leave> getPendingLeaves() {
@@ -117,13 +152,14 @@ public class LeaveService {
 
         leave.setStatus(Leave.LeaveStatus.APPROVED);
         leave.setHrRemarks(remarks);
-        leave.setApprovedBy(hrUser);
+        leave.setApprovedById(hrUser.getId());
+        leave.setApprovedByName(hrUser.getName());
         leave.setApprovedAt(LocalDateTime.now());
 
         // Deduct leave from balance if not unpaid
         if (!leave.getIsUnpaid()) {
             int currentYear = LocalDate.now().getYear();
-            LeaveBalance balance = getOrCreateLeaveBalance(leave.getEmployee(), currentYear);
+            LeaveBalance balance = getOrCreateLeaveBalance(leave.getEmployeeId(), currentYear);
             balance.deductLeave(leave.getLeaveType(), leave.getNumberOfDays());
             leaveBalanceRepository.save(balance);
         }
@@ -133,7 +169,7 @@ public class LeaveService {
 
         Leave saved = leaveRepository.save(leave);
         logger.info("Leave approved by: {} for employee: {} ({} days deducted from {})",
-                hrUser.getEmail(), leave.getEmployee().getEmail(),
+                hrUser.getEmail(), leave.getEmployeeEmail(),
                 leave.getNumberOfDays(), leave.getLeaveType());
 
         return saved;
@@ -158,11 +194,12 @@ public class LeaveService {
 
         leave.setStatus(Leave.LeaveStatus.REJECTED);
         leave.setHrRemarks(remarks);
-        leave.setApprovedBy(hrUser);
+        leave.setApprovedById(hrUser.getId());
+        leave.setApprovedByName(hrUser.getName());
         leave.setApprovedAt(LocalDateTime.now());
 
         Leave saved = leaveRepository.save(leave);
-        logger.info("Leave rejected by: {} for employee: {}", hrUser.getEmail(), leave.getEmployee().getEmail());
+        logger.info("Leave rejected by: {} for employee: {}", hrUser.getEmail(), leave.getEmployeeEmail());
 
         return saved;
     }
@@ -173,13 +210,27 @@ public class LeaveService {
                 .orElseThrow(() -> new RuntimeException("Leave request not found"));
 
         // Verify the leave belongs to the user
-        if (!leave.getEmployee().getId().equals(userId)) {
+        if (!userId.equals(leave.getEmployeeId())) {
             throw new RuntimeException("You can only cancel your own leave requests");
         }
 
-        // Only pending leaves can be revoked
-        if (leave.getStatus() != Leave.LeaveStatus.PENDING) {
-            throw new RuntimeException("Only pending leave requests can be cancelled");
+        // Pending leaves, and approved leaves that have not started yet, can be revoked
+        boolean approvedUpcoming = leave.getStatus() == Leave.LeaveStatus.APPROVED
+                && leave.getStartDate().isAfter(LocalDate.now());
+        if (leave.getStatus() != Leave.LeaveStatus.PENDING && !approvedUpcoming) {
+            throw new RuntimeException("Only pending or upcoming approved leave requests can be cancelled");
+        }
+
+        if (approvedUpcoming) {
+            unmarkAttendanceForLeave(leave);
+            if (!leave.getIsUnpaid()) {
+                int approvedYear = leave.getApprovedAt() != null
+                        ? leave.getApprovedAt().getYear()
+                        : LocalDate.now().getYear();
+                LeaveBalance balance = getOrCreateLeaveBalance(userId, approvedYear);
+                balance.restoreLeave(leave.getLeaveType(), leave.getNumberOfDays());
+                leaveBalanceRepository.save(balance);
+            }
         }
 
         // Delete the leave request
@@ -193,23 +244,17 @@ public class LeaveService {
     }
 
     public LeaveBalance getLeaveBalance(String userId, int year) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userDirectory.get(userId);
 
-        return getOrCreateLeaveBalance(user, year);
+        return getOrCreateLeaveBalance(userId, year);
     }
 
     public Map<String, Object> getLeaveReport(String userId, int year) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userDirectory.get(userId);
 
-        LeaveBalance balance = getOrCreateLeaveBalance(user, year);
-        List<Leave> leaves = leaveRepository.findByEmployeeOrderByCreatedAtDesc(user);
-
-        // Filter leaves for the specified year
-        List<Leave> yearLeaves = leaves.stream()
-                .filter(l -> l.getStartDate().getYear() == year)
-                .toList();
+        LeaveBalance balance = getOrCreateLeaveBalance(userId, year);
+        List<Leave> yearLeaves = leaveRepository.findStartingBetween(userId,
+                LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
 
         Map<String, Object> report = new HashMap<>();
         report.put("leaveBalance", balance);
@@ -230,49 +275,165 @@ public class LeaveService {
         return report;
     }
 
-    private LeaveBalance getOrCreateLeaveBalance(User user, int year) {
-        return leaveBalanceRepository.findByUserAndYear(user, year)
+    private LeaveBalance getOrCreateLeaveBalance(String userId, int year) {
+        return leaveBalanceRepository.findByUserIdAndYear(userId, year)
                 .orElseGet(() -> {
                     LeaveBalance newBalance = new LeaveBalance();
-                    newBalance.setUser(user);
+                    newBalance.setUserId(userId);
                     newBalance.setYear(year);
                     return leaveBalanceRepository.save(newBalance);
                 });
     }
 
-    private boolean hasOverlappingLeaves(User user, LocalDate startDate, LocalDate endDate) {
-        List<Leave> existingLeaves = leaveRepository.findByEmployeeOrderByCreatedAtDesc(user);
+    /**
+     * Marks every working day of the leave as LEAVE with one unordered bulk
+     * upsert keyed by (userId, date). Days that already have a real attendance
+     * record (the employee checked in) keep it: they are skipped, and the
+     * upsert filter only matches LEAVE records, so a check-in that lands
+     * concurrently makes that day's insert fail on the unique key instead of
+     * being overwritten. The existing records are read first in one query, so
+     * summaries, live counters and bitmaps move by the difference.
+     */
+    private void markAttendanceForLeave(Leave leave) {
+        List<LocalDate> days = workingDayCalendar.workingDays(leave.getStartDate(), leave.getEndDate());
+        if (days.isEmpty()) {
+            return;
+        }
 
-        return existingLeaves.stream()
-                .filter(l -> l.getStatus() != Leave.LeaveStatus.REJECTED)
-                .anyMatch(l -> {
-                    return !(endDate.isBefore(l.getStartDate()) || startDate.isAfter(l.getEndDate()));
-                });
+        Map<LocalDate, Attendance> previous = new HashMap<>();
+        for (Attendance record : mongoTemplate.find(leaveDaysQuery(leave.getEmployeeId(), days), Attendance.class)) {
+            previous.put(record.getDate(), record);
+        }
+
+        List<Attendance> leaveDays = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Attendance.class);
+        for (LocalDate date : days) {
+            Attendance existing = previous.get(date);
+            if (existing != null && !"LEAVE".equals(existing.getStatus())) {
+                continue;
+            }
+            Attendance leaveDay = leaveDay(leave, date);
+            bulk.upsert(Query.query(Criteria.where("userId").is(leaveDay.getUserId())
+                            .and("date").is(date)
+                            .and("status").is("LEAVE")),
+                    new Update()
+                            .set("userName", leaveDay.getUserName())
+                            .set("userEmail", leaveDay.getUserEmail())
+                            .set("department", leaveDay.getDepartment())
+                            .set("checkInTime", leaveDay.getCheckInTime())
+                            .set("checkOutTime", leaveDay.getCheckOutTime())
+                            .set("attendanceStatus", leaveDay.getAttendanceStatus())
+                            .set("durationMinutes", leaveDay.getDurationMinutes())
+                            .set("totalWorkHours", leaveDay.getTotalWorkHours())
+                            .set("isLate", leaveDay.getIsLate())
+                            .set("isOvertime", leaveDay.getIsOvertime())
+                            .set("overtimeMinutes", leaveDay.getOvertimeMinutes())
+                            .setOnInsert("createdAt", LocalDateTime.now()));
+            leaveDays.add(leaveDay);
+        }
+        if (leaveDays.isEmpty()) {
+            return;
+        }
+
+        BulkWriteResult result;
+        Set<Integer> skipped = new HashSet<>();
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                skipped.add(error.getIndex()); // checked in meanwhile; the real record stays
+            }
+            result = e.getResult();
+        }
+
+        List<String> recordIds = new ArrayList<>();
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            recordIds.add(upsert.getId().asObjectId().getValue().toHexString());
+        }
+        List<Attendance> marked = new ArrayList<>();
+        for (int index = 0; index < leaveDays.size(); index++) {
+            if (!skipped.contains(index)) {
+                Attendance leaveDay = leaveDays.get(index);
+                Attendance existing = previous.get(leaveDay.getDate());
+                if (existing != null) {
+                    recordIds.add(existing.getId());
+                }
+                marked.add(leaveDay);
+            }
+        }
+        leaveDays = marked;
+
+        Map<YearMonth, Contribution> deltas = new LinkedHashMap<>();
+        Map<YearMonth, Attendance> firstOfMonth = new LinkedHashMap<>();
+        for (Attendance leaveDay : leaveDays) {
+            Attendance before = previous.get(leaveDay.getDate());
+            YearMonth month = YearMonth.from(leaveDay.getDate());
+            deltas.merge(month, Contribution.of(leaveDay).minus(Contribution.of(before)), Contribution::plus);
+            firstOfMonth.putIfAbsent(month, leaveDay);
+            presenceStatsService.leaveMarked(leaveDay.getDate(), before);
+        }
+        deltas.forEach((month, delta) -> attendanceSummaryService.apply(firstOfMonth.get(month), Contribution.NONE, delta));
+        attendanceBitmapService.applyAll(recordIds);
+
+        logger.debug("Marked {} of {} working days as LEAVE for user: {} ({} to {})",
+                leaveDays.size(), days.size(), leave.getEmployeeEmail(), leave.getStartDate(), leave.getEndDate());
     }
 
-    private void markAttendanceForLeave(Leave leave) {
-        LocalDate currentDate = leave.getStartDate();
-
-        while (!currentDate.isAfter(leave.getEndDate())) {
-            // Create attendance record for each leave day
-            Attendance attendance = new Attendance();
-            attendance.setUser(leave.getEmployee());
-            attendance.setDate(currentDate);
-            attendance.setCheckInTime(LocalDateTime.of(currentDate, LocalTime.of(9, 0)));
-            attendance.setCheckOutTime(LocalDateTime.of(currentDate, LocalTime.of(17, 0)));
-            attendance.setStatus("LEAVE");
-            attendance.setAttendanceStatus("LEAVE");
-            attendance.setDurationMinutes(480L); // 8 hours
-            attendance.setTotalWorkHours(8.0);
-            attendance.setIsLate(false);
-            attendance.setIsOvertime(false);
-            attendance.setOvertimeMinutes(0L);
-
-            attendanceRepository.save(attendance);
-            logger.debug("Marked attendance as LEAVE for user: {} on date: {}",
-                    leave.getEmployee().getEmail(), currentDate);
-
-            currentDate = currentDate.plusDays(1);
+    /**
+     * Removes the LEAVE records of a cancelled leave with a single delete and
+     * takes them back out of summaries, live counters and bitmaps.
+     */
+    private void unmarkAttendanceForLeave(Leave leave) {
+        Query marked = Query.query(Criteria.where("userId").is(leave.getEmployeeId())
+                .and("date").gte(leave.getStartDate()).lte(leave.getEndDate())
+                .and("status").is("LEAVE"));
+        List<Attendance> leaveDays = mongoTemplate.find(marked, Attendance.class);
+        if (leaveDays.isEmpty()) {
+            return;
         }
+
+        List<String> ids = leaveDays.stream().map(Attendance::getId).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), Attendance.class);
+
+        Map<YearMonth, Contribution> removed = new LinkedHashMap<>();
+        Map<YearMonth, Attendance> firstOfMonth = new LinkedHashMap<>();
+        for (Attendance leaveDay : leaveDays) {
+            YearMonth month = YearMonth.from(leaveDay.getDate());
+            removed.merge(month, Contribution.of(leaveDay), Contribution::plus);
+            firstOfMonth.putIfAbsent(month, leaveDay);
+            presenceStatsService.leaveUnmarked(leaveDay.getDate());
+        }
+        removed.forEach((month, contribution) ->
+                attendanceSummaryService.apply(firstOfMonth.get(month), contribution, Contribution.NONE));
+        attendanceBitmapService.clearDays(leave.getEmployeeId(), leaveDays.stream().map(Attendance::getDate).toList());
+
+        logger.debug("Removed {} LEAVE records for user: {} ({} to {})",
+                leaveDays.size(), leave.getEmployeeEmail(), leave.getStartDate(), leave.getEndDate());
+    }
+
+    private static Attendance leaveDay(Leave leave, LocalDate date) {
+        Attendance leaveDay = new Attendance();
+        leaveDay.setUserId(leave.getEmployeeId());
+        leaveDay.setUserName(leave.getEmployeeName());
+        leaveDay.setUserEmail(leave.getEmployeeEmail());
+        leaveDay.setDepartment(leave.getDepartment());
+        leaveDay.setDate(date);
+        leaveDay.setCheckInTime(LocalDateTime.of(date, LocalTime.of(9, 0)));
+        leaveDay.setCheckOutTime(LocalDateTime.of(date, LocalTime.of(17, 0)));
+        leaveDay.setStatus("LEAVE");
+        leaveDay.setAttendanceStatus("LEAVE");
+        leaveDay.setDurationMinutes(480L); // 8 hours
+        leaveDay.setTotalWorkHours(8.0);
+        leaveDay.setIsLate(false);
+        leaveDay.setIsOvertime(false);
+        leaveDay.setOvertimeMinutes(0L);
+        return leaveDay;
+    }
+
+    private static Query leaveDaysQuery(String userId, List<LocalDate> days) {
+        return Query.query(Criteria.where("userId").is(userId).and("date").in(days));
     }
 }
@@ -0,0 +1,96 @@
+package com.empowerly.service;
+
+import com.empowerly.model.Meeting;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Bounded in-process cache of meeting link -> an immutable snapshot of the
+ * meeting (id, host, title, scheduled time and status), used by the join path
+ * so that resolving a meeting and deciding whether it still has to be started
+ * does not hit Mongo. Entries are warmed on creation and lookup, replaced with
+ * a new snapshot when the meeting starts, evicted when it ends or is deleted,
+ * and expire a fixed time after being written. Another node's changes are seen
+ * once the entry is reloaded; the join path reloads whenever its conditional
+ * start finds the meeting no longer SCHEDULED.
+ */
+@Component
+public class MeetingLinkCache {
+
+    private static final long MAX_ENTRIES = 10_000;
+    private static final Duration EXPIRY = Duration.ofHours(12);
+
+    private final Cache<String, MeetingLink> meetingsByLink = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterWrite(EXPIRY)
+            .build();
+
+    private final Cache<String, String> linksById = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterWrite(EXPIRY)
+            .build();
+
+    public void put(Meeting meeting) {
+        if (meeting == null || meeting.getMeetingLink() == null) {
+            return;
+        }
+        if (meeting.getStatus() == Meeting.MeetingStatus.ENDED
+                || meeting.getStatus() == Meeting.MeetingStatus.CANCELLED) {
+            evict(meeting);
+            return;
+        }
+        meetingsByLink.put(meeting.getMeetingLink(), MeetingLink.of(meeting));
+        linksById.put(meeting.getId(), meeting.getMeetingLink());
+    }
+
+    public Optional<MeetingLink> getByLink(String meetingLink) {
+        return Optional.ofNullable(meetingsByLink.getIfPresent(meetingLink));
+    }
+
+    public Optional<MeetingLink> getById(String meetingId) {
+        String meetingLink = linksById.getIfPresent(meetingId);
+        return meetingLink == null ? Optional.empty() : getByLink(meetingLink);
+    }
+
+    /**
+     * Swaps the cached snapshot for one that is IN_PROGRESS, so later joins skip
+     * the start. The entry is replaced atomically, never mutated.
+     */
+    public void markStarted(String meetingId) {
+        String meetingLink = linksById.getIfPresent(meetingId);
+        if (meetingLink != null) {
+            meetingsByLink.asMap().computeIfPresent(meetingLink,
+                    (link, cached) -> cached.withStatus(Meeting.MeetingStatus.IN_PROGRESS));
+        }
+    }
+
+    public void evict(Meeting meeting) {
+        if (meeting.getMeetingLink() != null) {
+            meetingsByLink.invalidate(meeting.getMeetingLink());
+        }
+        if (meeting.getId() != null) {
+            linksById.invalidate(meeting.getId());
+        }
+    }
+
+    /**
+     * What the join path needs to know about a meeting.
+     */
+    public record MeetingLink(String id, String meetingLink, String hostId, String title,
+            LocalDateTime scheduledTime, Meeting.MeetingStatus status) {
+
+        static MeetingLink of(Meeting meeting) {
+            return new MeetingLink(meeting.getId(), meeting.getMeetingLink(), meeting.getHostId(),
+                    meeting.getTitle(), meeting.getScheduledTime(), meeting.getStatus());
+        }
+
+        MeetingLink withStatus(Meeting.MeetingStatus newStatus) {
+            return new MeetingLink(id, meetingLink, hostId, title, scheduledTime, newStatus);
+        }
+    }
+}
@@ -1,19 +1,37 @@
 package com.empowerly.service;
 
 import com.empowerly.dto.CreateMeetingRequest;
+import com.empowerly.dto.InviteParticipantsRequest;
 import com.empowerly.dto.MeetingResponse;
 import com.empowerly.model.Meeting;
 import com.empowerly.model.MeetingParticipant;
 import com.empowerly.model.User;
 import com.empowerly.repository.MeetingParticipantRepository;
 import com.empowerly.repository.MeetingRepository;
-import com.empowerly.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -23,7 +41,21 @@ public class MeetingService {
 
     private final MeetingRepository meetingRepository;
     private final MeetingParticipantRepository participantRepository;
-    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MeetingLinkCache meetingLinkCache;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private static final int UPCOMING_MEETINGS_LIMIT = 50;
+    private static final int DUPLICATE_KEY = 11000;
+
+    // Per-user dashboard view; invalidated by create, invite, start and end on this
+    // node. Other nodes are not told, so there a new invitation or a started meeting
+    // can take up to the one-minute expiry to show, which also drops meetings once
+    // their scheduled time passes.
+    private final Cache<String, List<MeetingResponse>> upcomingMeetingsCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
 
     public MeetingResponse createMeeting(CreateMeetingRequest request, String hostId) {
         // Create meeting
@@ -39,49 +71,35 @@ public class MeetingService {
 
         // Add participant IDs to meeting
         if (request.getParticipantIds() != null && !request.getParticipantIds().isEmpty()) {
-            List<String> participantIds = new ArrayList<>();
-            for (String participantId : request.getParticipantIds()) {
-                if (!participantId.equals(hostId)) {
-                    participantIds.add(participantId);
-                }
-            }
-            meeting.setParticipantIds(participantIds);
+            meeting.setParticipantIds(request.getParticipantIds().stream()
+                    .filter(participantId -> !participantId.equals(hostId))
+                    .distinct()
+                    .collect(Collectors.toList()));
         }
 
         meeting = meetingRepository.save(meeting);
+        meetingLinkCache.put(meeting);
+        invalidateUpcomingMeetings(meeting);
 
         // Create participant records
-        if (request.getParticipantIds() != null && !request.getParticipantIds().isEmpty()) {
-            for (String participantId : request.getParticipantIds()) {
-                if (!participantId.equals(hostId)) {
-                    MeetingParticipant participant = new MeetingParticipant(meeting.getId(), participantId);
-                    participantRepository.save(participant);
-                }
-            }
+        if (!meeting.getParticipantIds().isEmpty()) {
+            String meetingId = meeting.getId();
+            participantRepository.insert(meeting.getParticipantIds().stream()
+                    .map(participantId -> new MeetingParticipant(meetingId, participantId))
+                    .collect(Collectors.toList()));
+            notifyInvitees(meeting, meeting.getParticipantIds());
         }
 
         return convertToResponse(meeting);
     }
 
     public List<MeetingResponse> getUserMeetings(String userId) {
-        List<Meeting> meetings = meetingRepository.findAllMeetingsByUser(userId);
-
-        return meetings.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(meetingRepository.findAllMeetingsByUser(userId));
     }
 
     public List<MeetingResponse> getUpcomingMeetings(String userId) {
-        LocalDateTime now = LocalDateTime.now();
-        List<Meeting> hostMeetings = meetingRepository.findUpcomingMeetingsByHost(userId, now);
-        List<Meeting> participantMeetings = meetingRepository.findUpcomingMeetingsByParticipant(userId, now);
-
-        hostMeetings.addAll(participantMeetings);
-
-        return hostMeetings.stream()
-                .distinct()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return upcomingMeetingsCache.get(userId, id -> List.copyOf(convertToResponses(meetingRepository
+                .findUpcomingMeetingsByUser(id, LocalDateTime.now(), PageRequest.of(0, UPCOMING_MEETINGS_LIMIT)))));
     }
 
     public MeetingResponse getMeetingById(String meetingId) {
@@ -91,54 +109,139 @@ public class MeetingService {
     }
 
     public MeetingResponse getMeetingByLink(String meetingLink) {
+        // The response carries live status, so it is read from Mongo; opening a link
+        // warms the cache for the join that usually follows
         Meeting meeting = meetingRepository.findByMeetingLink(meetingLink)
                 .orElseThrow(() -> new RuntimeException("Meeting not found"));
+        meetingLinkCache.put(meeting);
         return convertToResponse(meeting);
     }
 
-    public void inviteParticipants(String meetingId, List<String> userIds) {
+    /**
+     * Invites users by id, department or role. Only the host, HR or Admin may
+     * invite. Participant records are upserted on (meetingId, userId), so users
+     * already invited, or invited concurrently by another request, are left as
+     * they are and not notified again.
+     */
+    public int inviteParticipants(String meetingId, InviteParticipantsRequest request, String inviterId,
+            boolean hrOrAdmin) {
         Meeting meeting = meetingRepository.findById(meetingId)
                 .orElseThrow(() -> new RuntimeException("Meeting not found"));
 
-        List<String> currentParticipants = meeting.getParticipantIds();
-        if (currentParticipants == null) {
-            currentParticipants = new ArrayList<>();
+        if (!hrOrAdmin && !meeting.getHostId().equals(inviterId)) {
+            throw new RuntimeException("Only the host, HR or Admin can invite participants");
         }
 
+        // Resolve explicit ids, department and role recipients in one query
+        List<Criteria> recipientCriteria = new ArrayList<>();
+        if (request.getUserIds() != null && !request.getUserIds().isEmpty()) {
+            recipientCriteria.add(Criteria.where("_id").in(request.getUserIds()));
+        }
+        if (request.getDepartment() != null) {
+            recipientCriteria.add(Criteria.where("department").is(request.getDepartment()));
+        }
+        if (request.getRole() != null) {
+            recipientCriteria.add(Criteria.where("role").is(request.getRole()));
+        }
+        if (recipientCriteria.isEmpty()) {
+            throw new RuntimeException("Specify userIds, a department or a role to invite");
+        }
+
+        Query recipientQuery = Query.query(new Criteria().orOperator(recipientCriteria));
+        recipientQuery.fields().include("_id");
+        List<String> candidates = mongoTemplate.find(recipientQuery, User.class).stream()
+                .map(User::getId)
+                .filter(userId -> !userId.equals(meeting.getHostId()))
+                .distinct()
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        // Only upserts that inserted a record are new invitations
+        Set<String> recipients = upsertInvitations(meetingId, candidates).getUpserts().stream()
+                .map(upsert -> candidates.get(upsert.getIndex()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (recipients.isEmpty()) {
+            return 0;
+        }
+
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(meetingId)),
+                new Update().addToSet("participantIds").each(recipients.toArray()),
+                Meeting.class);
+
+        List<String> participantIds = new ArrayList<>(
+                meeting.getParticipantIds() != null ? meeting.getParticipantIds() : List.of());
+        recipients.stream().filter(userId -> !participantIds.contains(userId)).forEach(participantIds::add);
+        meeting.setParticipantIds(participantIds);
+        invalidateUpcomingMeetings(meeting);
+
+        notifyInvitees(meeting, recipients);
+        return recipients.size();
+    }
+
+    private BulkWriteResult upsertInvitations(String meetingId, List<String> userIds) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MeetingParticipant.class);
+        LocalDateTime now = LocalDateTime.now();
         for (String userId : userIds) {
-            // Check if already invited
-            if (!currentParticipants.contains(userId) &&
-                    participantRepository.findByMeetingIdAndUserId(meetingId, userId).isEmpty()) {
+            bulk.upsert(participantKey(meetingId, userId), new Update()
+                    .setOnInsert("status", MeetingParticipant.ParticipantStatus.INVITED)
+                    .setOnInsert("invitedAt", now));
+        }
 
-                currentParticipants.add(userId);
-                MeetingParticipant participant = new MeetingParticipant(meetingId, userId);
-                participantRepository.save(participant);
+        try {
+            return bulk.execute();
+        } catch (BulkOperationException e) {
+            // Two upserts racing on the unique index: the other request invited the user
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
             }
+            return e.getResult();
         }
+    }
 
-        meeting.setParticipantIds(currentParticipants);
-        meetingRepository.save(meeting);
+    private static Query participantKey(String meetingId, String userId) {
+        return Query.query(Criteria.where("meetingId").is(meetingId).and("userId").is(userId));
     }
 
     public void joinMeeting(String meetingId, String userId) {
-        Meeting meeting = meetingRepository.findById(meetingId)
-                .orElseThrow(() -> new RuntimeException("Meeting not found"));
-
-        // Update meeting status if first participant
-        if (meeting.getStatus() == Meeting.MeetingStatus.SCHEDULED) {
-            meeting.setStatus(Meeting.MeetingStatus.IN_PROGRESS);
-            meeting.setStartedAt(LocalDateTime.now());
-            meetingRepository.save(meeting);
+        MeetingLinkCache.MeetingLink meeting = meetingLinkCache.getById(meetingId)
+                .orElseGet(() -> loadIntoCache(meetingId));
+
+        // Update meeting status if first participant. Once the cache knows the meeting
+        // is in progress, joins skip this write entirely.
+        if (meeting.status() == Meeting.MeetingStatus.SCHEDULED) {
+            Query scheduled = Query.query(Criteria.where("_id").is(meetingId)
+                    .and("status").is(Meeting.MeetingStatus.SCHEDULED));
+            scheduled.fields().include("hostId", "participantIds");
+            Meeting started = mongoTemplate.findAndModify(scheduled,
+                    new Update()
+                            .set("status", Meeting.MeetingStatus.IN_PROGRESS)
+                            .set("startedAt", LocalDateTime.now()),
+                    Meeting.class);
+            if (started != null) {
+                meetingLinkCache.markStarted(meetingId);
+                invalidateUpcomingMeetings(started);
+            } else {
+                // Started or ended elsewhere since it was cached; refresh the snapshot
+                loadIntoCache(meetingId);
+            }
         }
 
-        // Update participant status
-        MeetingParticipant participant = participantRepository
-                .findByMeetingIdAndUserId(meetingId, userId)
-                .orElseGet(() -> new MeetingParticipant(meetingId, userId));
+        // Update participant status, creating the record for uninvited joiners
+        mongoTemplate.upsert(participantKey(meetingId, userId), new Update()
+                .set("status", MeetingParticipant.ParticipantStatus.JOINED)
+                .set("joinedAt", LocalDateTime.now()), MeetingParticipant.class);
+    }
 
-        participant.setStatus(MeetingParticipant.ParticipantStatus.JOINED);
-        participant.setJoinedAt(LocalDateTime.now());
-        participantRepository.save(participant);
+    private MeetingLinkCache.MeetingLink loadIntoCache(String meetingId) {
+        Meeting loaded = meetingRepository.findById(meetingId)
+                .orElseThrow(() -> new RuntimeException("Meeting not found"));
+        meetingLinkCache.put(loaded);
+        return MeetingLinkCache.MeetingLink.of(loaded);
     }
 
     public void leaveMeeting(String meetingId, String userId) {
@@ -165,6 +268,8 @@ public class MeetingService {
         meeting.setStatus(Meeting.MeetingStatus.ENDED);
         meeting.setEndedAt(LocalDateTime.now());
         meetingRepository.save(meeting);
+        meetingLinkCache.evict(meeting);
+        invalidateUpcomingMeetings(meeting);
 
         // Update all joined participants to left
         List<MeetingParticipant> participants = participantRepository.findByMeetingId(meetingId);
@@ -200,6 +305,8 @@ public class MeetingService {
             participantRepository.deleteByMeetingId(meeting.getId());
             // Delete the meeting itself
             meetingRepository.delete(meeting);
+            meetingLinkCache.evict(meeting);
+            invalidateUpcomingMeetings(meeting);
         }
 
         // For meetings where user is just a participant, remove their participant
@@ -208,16 +315,69 @@ public class MeetingService {
         participantRepository.deleteAll(participantRecords);
     }
 
+    private void notifyInvitees(Meeting meeting, Collection<String> userIds) {
+        // One in-memory broker pass after the bulk write; no per-user database work
+        Map<String, Object> invitation = Map.of(
+                "type", "meeting-invite",
+                "meetingId", meeting.getId(),
+                "title", meeting.getTitle() != null ? meeting.getTitle() : "",
+                "meetingLink", meeting.getMeetingLink());
+        for (String userId : userIds) {
+            messagingTemplate.convertAndSend("/topic/user/" + userId + "/invitations", invitation);
+        }
+    }
+
+    private void invalidateUpcomingMeetings(Meeting meeting) {
+        upcomingMeetingsCache.invalidate(meeting.getHostId());
+        if (meeting.getParticipantIds() != null) {
+            upcomingMeetingsCache.invalidateAll(meeting.getParticipantIds());
+        }
+    }
+
     private String generateMeetingLink() {
         return UUID.randomUUID().toString().replace("-", "").substring(0, 12);
     }
 
     private MeetingResponse convertToResponse(Meeting meeting) {
+        return convertToResponses(List.of(meeting)).get(0);
+    }
+
+    /**
+     * Builds responses for a page of meetings with one participant query and one
+     * user-name query in total, however many meetings there are.
+     */
+    private List<MeetingResponse> convertToResponses(List<Meeting> meetings) {
+        if (meetings.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, List<MeetingParticipant>> participantsByMeeting = participantRepository
+                .findByMeetingIdIn(meetings.stream().map(Meeting::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(MeetingParticipant::getMeetingId));
+
+        Set<String> userIds = new LinkedHashSet<>();
+        meetings.forEach(meeting -> userIds.add(meeting.getHostId()));
+        participantsByMeeting.values().forEach(participants -> participants.forEach(p -> userIds.add(p.getUserId())));
+        Query userQuery = Query.query(Criteria.where("_id").in(userIds));
+        userQuery.fields().include("name");
+        Map<String, String> userNames = new HashMap<>();
+        mongoTemplate.find(userQuery, User.class).forEach(user -> userNames.put(user.getId(), user.getName()));
+
+        return meetings.stream()
+                .map(meeting -> convertToResponse(meeting,
+                        participantsByMeeting.getOrDefault(meeting.getId(), List.of()), userNames))
+                .collect(Collectors.toList());
+    }
+
+    private MeetingResponse convertToResponse(Meeting meeting, List<MeetingParticipant> participants,
+            Map<String, String> userNames) {
         MeetingResponse response = new MeetingResponse();
         response.setId(meeting.getId());
         response.setTitle(meeting.getTitle());
         response.setDescription(meeting.getDescription());
         response.setHostId(meeting.getHostId());
+        response.setHostName(userNames.get(meeting.getHostId()));
         response.setScheduledTime(meeting.getScheduledTime());
         response.setDuration(meeting.getDuration());
         response.setStatus(meeting.getStatus());
@@ -226,20 +386,14 @@ public class MeetingService {
         response.setStartedAt(meeting.getStartedAt());
         response.setEndedAt(meeting.getEndedAt());
 
-        // Get host name
-        userRepository.findById(meeting.getHostId()).ifPresent(host -> response.setHostName(host.getName()));
-
         // Get participants
-        List<MeetingParticipant> participants = participantRepository.findByMeetingId(meeting.getId());
         List<MeetingResponse.ParticipantInfo> participantInfos = participants.stream()
                 .map(p -> {
                     MeetingResponse.ParticipantInfo info = new MeetingResponse.ParticipantInfo();
                     info.setUserId(p.getUserId());
                     info.setStatus(p.getStatus().name());
                     info.setJoinedAt(p.getJoinedAt());
-
-                    userRepository.findById(p.getUserId()).ifPresent(user -> info.setUserName(user.getName()));
-
+                    info.setUserName(userNames.get(p.getUserId()));
                     return info;
                 })
                 .collect(Collectors.toList());
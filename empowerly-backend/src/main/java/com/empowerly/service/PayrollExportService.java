@@ -0,0 +1,251 @@
+package com.empowerly.service;
+
+import com.empowerly.model.Payroll;
+import com.empowerly.model.PayrollEntry;
+import com.empowerly.repository.PayrollRepository;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Streams payroll entries straight from a Mongo cursor into CSV or a
+ * fixed-width bank-transfer file. Rows are written through a fixed-size buffer
+ * as the cursor advances, so memory stays flat whatever the headcount.
+ *
+ * Both formats are ordered by employeeId (covered by the payroll_employee
+ * index). CSV downloads resume from the last employee received; the bank file
+ * has fixed-length records, so any byte range maps to a record offset and is
+ * served without re-sending earlier records.
+ */
+@Service
+@RequiredArgsConstructor
+public class PayrollExportService {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int CURSOR_BATCH_SIZE = 1000;
+
+    // Bank file layout: every record is BANK_RECORD_LENGTH ASCII bytes including the newline.
+    // The widest record is the detail: "D" + id (24) + name (35) + period (6) + amount (15) = 81.
+    static final int BANK_RECORD_LENGTH = 82;
+    private static final int EMPLOYEE_ID_WIDTH = 24;
+    private static final int EMPLOYEE_NAME_WIDTH = 35;
+    private static final int AMOUNT_WIDTH = 15;
+
+    private final PayrollRepository payrollRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public void writeCsv(String payrollId, String afterEmployeeId, OutputStream out) throws IOException {
+        Payroll payroll = findPayroll(payrollId);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+
+        if (afterEmployeeId == null) {
+            writer.write("employeeId,employeeName,month,year,workingDays,presentDays,paidLeaves,unpaidLeaves,"
+                    + "basicSalary,grossSalary,totalDeductions,netSalary,status\n");
+        }
+        try (Stream<PayrollEntry> entries = streamEntries(payroll.getId(), afterEmployeeId, 0)) {
+            for (PayrollEntry entry : (Iterable<PayrollEntry>) entries::iterator) {
+                writer.write(csv(entry.getEmployeeId()));
+                writer.write(',');
+                writer.write(csv(entry.getEmployeeName()));
+                writer.write(',');
+                writer.write(payroll.getMonth() + "," + payroll.getYear() + ","
+                        + entry.getWorkingDays() + "," + entry.getPresentDays() + ","
+                        + entry.getPaidLeaves() + "," + entry.getUnpaidLeaves() + ",");
+                long gross = SalaryKernel.toMinor(entry.getGrossSalary());
+                long net = SalaryKernel.toMinor(entry.getNetSalary());
+                writer.write(amount(SalaryKernel.toMinor(entry.getBasicSalary())) + "," + amount(gross) + ","
+                        + amount(gross - net) + "," + amount(net) + ",");
+                writer.write(entry.getStatus() != null ? entry.getStatus().name() : "");
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Size and validator of the bank file, computed with one aggregation so a
+     * range request can be answered before anything is streamed.
+     */
+    public BankFileInfo describeBankFile(String payrollId) {
+        Payroll payroll = findPayroll(payrollId);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("payrollId").is(payrollId)),
+                context -> PayrollService.entryTotalsGroup(null));
+        Document totals = mongoTemplate.aggregate(aggregation, PayrollEntry.class, Document.class)
+                .getUniqueMappedResult();
+
+        BankFileInfo info = new BankFileInfo();
+        info.setPayroll(payroll);
+        info.setRecordCount(totals != null ? ((Number) totals.get("totalEmployees")).intValue() : 0);
+        info.setTotalMinor(totals != null ? ((Number) totals.get("totalMinor")).longValue() : 0);
+        info.setLength((long) (info.getRecordCount() + 2) * BANK_RECORD_LENGTH);
+        info.setEtag("\"" + payrollId + "-" + info.getRecordCount() + "-" + info.getTotalMinor() + "\"");
+        return info;
+    }
+
+    /**
+     * Writes bytes {@code start..end} (inclusive) of the bank file: a header
+     * record, one detail record per entry and a trailer with the control total.
+     */
+    public void writeBankFile(BankFileInfo info, long start, long end, OutputStream out) throws IOException {
+        Payroll payroll = info.getPayroll();
+        String period = String.format("%04d%02d", payroll.getYear(), payroll.getMonth());
+        RangeWriter writer = new RangeWriter(out, start, end);
+
+        long firstRecord = start / BANK_RECORD_LENGTH;
+        if (firstRecord == 0) {
+            writer.write(record("H" + pad(payroll.getId(), EMPLOYEE_ID_WIDTH) + period
+                    + zeroPad(info.getRecordCount(), 9)));
+        }
+
+        // Detail records before the requested range are skipped in the database, not streamed
+        long skip = Math.max(0, firstRecord - 1);
+        if (skip < info.getRecordCount()) {
+            try (Stream<PayrollEntry> entries = streamEntries(payroll.getId(), null, skip)) {
+                for (PayrollEntry entry : (Iterable<PayrollEntry>) entries::iterator) {
+                    if (writer.isDone()) {
+                        break;
+                    }
+                    writer.write(record("D" + pad(entry.getEmployeeId(), EMPLOYEE_ID_WIDTH)
+                            + pad(entry.getEmployeeName(), EMPLOYEE_NAME_WIDTH) + period
+                            + zeroPad(SalaryKernel.toMinor(entry.getNetSalary()), AMOUNT_WIDTH)));
+                }
+            }
+        }
+
+        writer.write(record("T" + zeroPad(info.getRecordCount(), 9) + zeroPad(info.getTotalMinor(), 18)));
+        writer.flush();
+    }
+
+    private Payroll findPayroll(String payrollId) {
+        return payrollRepository.findById(payrollId)
+                .orElseThrow(() -> new RuntimeException("Payroll not found"));
+    }
+
+    private Stream<PayrollEntry> streamEntries(String payrollId, String afterEmployeeId, long skip) {
+        Criteria criteria = Criteria.where("payrollId").is(payrollId);
+        if (afterEmployeeId != null) {
+            criteria = criteria.and("employeeId").gt(afterEmployeeId);
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "employeeId"))
+                .skip(skip)
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        query.fields().include("employeeId", "employeeName", "basicSalary", "grossSalary", "netSalary",
+                "workingDays", "presentDays", "paidLeaves", "unpaidLeaves", "status");
+        return mongoTemplate.stream(query, PayrollEntry.class);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String amount(long minor) {
+        return (minor < 0 ? "-" : "") + Math.abs(minor / 100) + "." + String.format("%02d", Math.abs(minor % 100));
+    }
+
+    private static byte[] record(String content) {
+        // Fields are padded to their widths, so overflowing content is a layout bug
+        if (content.length() > BANK_RECORD_LENGTH - 1) {
+            throw new IllegalStateException("Bank record exceeds " + (BANK_RECORD_LENGTH - 1) + " characters");
+        }
+        // ASCII only, so characters and bytes line up with the fixed layout
+        StringBuilder record = new StringBuilder(BANK_RECORD_LENGTH);
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            record.append(c >= 0x20 && c < 0x7f ? c : '?');
+        }
+        while (record.length() < BANK_RECORD_LENGTH - 1) {
+            record.append(' ');
+        }
+        record.append('\n');
+        return record.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String pad(String value, int width) {
+        String text = value == null ? "" : value;
+        return text.length() >= width ? text.substring(0, width) : text + " ".repeat(width - text.length());
+    }
+
+    private static String zeroPad(long value, int width) {
+        return String.format("%0" + width + "d", value);
+    }
+
+    @Data
+    public static class BankFileInfo {
+        private Payroll payroll;
+        private int recordCount;
+        private long totalMinor;
+        private long length;
+        private String etag;
+    }
+
+    /**
+     * Buffers records to the response, dropping bytes outside the requested range.
+     */
+    private static class RangeWriter {
+
+        private final byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+        private final OutputStream out;
+        private final long end;
+        private long position;
+        private long skipBytes;
+        private int buffered;
+
+        RangeWriter(OutputStream out, long start, long end) {
+            this.out = out;
+            this.end = end;
+            // Writing starts at the first record touched by the range
+            this.position = start - start % BANK_RECORD_LENGTH;
+            this.skipBytes = start - position;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            for (byte b : bytes) {
+                if (position > end) {
+                    return;
+                }
+                position++;
+                if (skipBytes > 0) {
+                    skipBytes--;
+                    continue;
+                }
+                if (buffered == buffer.length) {
+                    out.write(buffer, 0, buffered);
+                    buffered = 0;
+                }
+                buffer[buffered++] = b;
+            }
+        }
+
+        boolean isDone() {
+            return position > end;
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, buffered);
+            buffered = 0;
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.ApprovePayrollRequest;
+import com.empowerly.dto.PayrollJobResponse;
+import com.empowerly.dto.PayrollResponse;
+import com.empowerly.model.PayrollJob;
+import com.empowerly.model.PayrollJobStatus;
+import com.empowerly.model.PayrollJobType;
+import com.empowerly.model.PayrollStatus;
+import com.empowerly.repository.PayrollJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs long payroll operations (entry generation, approval, payslip rendering,
+ * deletion) as persisted jobs outside the HTTP request. Progress is checkpointed per chunk and pushed to
+ * {@code /topic/payroll/jobs/{jobId}}; a running job also writes a heartbeat
+ * every 30 seconds, and jobs left QUEUED or RUNNING by a crashed node are
+ * picked up again once their heartbeat goes stale.
+ */
+@Service
+@RequiredArgsConstructor
+public class PayrollJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollJobService.class);
+
+    private static final Duration STALE_AFTER = Duration.ofMinutes(2);
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(30);
+    // How far back the sweep looks for approvals whose render job was never queued
+    private static final Duration RENDER_FOLLOW_UP_WINDOW = Duration.ofDays(1);
+    private static final List<PayrollJobStatus> ACTIVE_STATUSES = List.of(PayrollJobStatus.QUEUED,
+            PayrollJobStatus.RUNNING);
+
+    private final PayrollJobRepository payrollJobRepository;
+    private final PayrollService payrollService;
+    private final PayslipPdfService payslipPdfService;
+    private final MongoTemplate mongoTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2,
+            new CustomizableThreadFactory("payroll-job-"));
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("payroll-job-heartbeat-"));
+
+    public PayrollJobResponse submitGeneration(String payrollId, String userId) {
+        payrollService.validateGeneration(payrollId);
+        return convertToResponse(submit(payrollId, PayrollJobType.GENERATE_ENTRIES, userId));
+    }
+
+    /**
+     * Approves the payroll and issues its payslips in a job. A payroll that is
+     * already approved but whose approval job never completed (it failed
+     * part-way) gets the job again; issuing payslips is idempotent.
+     */
+    public PayrollJobResponse submitApproval(String payrollId, String adminId, ApprovePayrollRequest request) {
+        PayrollResponse payroll = payrollService.getPayrollDetails(payrollId);
+        if (payroll.getStatus() == PayrollStatus.APPROVED) {
+            if (payrollJobRepository.existsByPayrollIdAndTypeAndStatus(payrollId, PayrollJobType.APPROVE,
+                    PayrollJobStatus.COMPLETED)) {
+                throw new RuntimeException("Payroll is already approved");
+            }
+        } else {
+            payrollService.approvePayroll(payrollId, adminId, request);
+        }
+        return convertToResponse(submit(payrollId, PayrollJobType.APPROVE, adminId));
+    }
+
+    /**
+     * Renders the PDFs of an approved payroll's payslips that do not have one
+     * yet, e.g. after a render job failed part-way.
+     */
+    public PayrollJobResponse submitRendering(String payrollId, String userId) {
+        PayrollResponse payroll = payrollService.getPayrollDetails(payrollId);
+        if (payroll.getStatus() != PayrollStatus.APPROVED
+                || !payrollJobRepository.existsByPayrollIdAndTypeAndStatus(payrollId, PayrollJobType.APPROVE,
+                        PayrollJobStatus.COMPLETED)) {
+            throw new RuntimeException("Payslips are issued once approval completes");
+        }
+        return convertToResponse(submit(payrollId, PayrollJobType.RENDER_PAYSLIPS, userId));
+    }
+
+    /**
+     * Deletes small payrolls inline and returns null; large ones are deleted by
+     * a background job, which is returned.
+     */
+    public PayrollJobResponse submitDeletion(String payrollId, String userId) {
+        if (!payrollService.isLargeDeletion(payrollId)) {
+            payrollService.deletePayroll(payrollId, (processed, total) -> {
+            });
+            return null;
+        }
+        return convertToResponse(submit(payrollId, PayrollJobType.DELETE_PAYROLL, userId));
+    }
+
+    public PayrollJobResponse getJob(String jobId) {
+        PayrollJob job = payrollJobRepository.findById(jobId)
+                .orElseThrow(() -> new RuntimeException("Payroll job not found"));
+        return convertToResponse(job);
+    }
+
+    public List<PayrollJobResponse> getJobsForPayroll(String payrollId) {
+        return payrollJobRepository.findByPayrollIdOrderByCreatedAtDesc(payrollId).stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void resumeStaleJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(STALE_AFTER);
+        for (PayrollJob job : payrollJobRepository.findByStatusInAndHeartbeatAtBefore(ACTIVE_STATUSES, cutoff)) {
+            logger.info("Resuming payroll job {} ({}) for payroll {}", job.getId(), job.getType(), job.getPayrollId());
+            executor.execute(() -> run(job.getId(), true));
+        }
+
+        // A node that died between finishing an approval and queueing its render job
+        // leaves payslips without PDFs; queue the render for it here
+        LocalDateTime since = LocalDateTime.now().minus(RENDER_FOLLOW_UP_WINDOW);
+        for (PayrollJob approval : payrollJobRepository.findByTypeAndStatusAndCompletedAtAfter(
+                PayrollJobType.APPROVE, PayrollJobStatus.COMPLETED, since)) {
+            if (!payrollJobRepository.existsByPayrollIdAndType(approval.getPayrollId(),
+                    PayrollJobType.RENDER_PAYSLIPS)) {
+                logger.info("Queueing missing payslip render for payroll {}", approval.getPayrollId());
+                queueRendering(approval);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        heartbeats.shutdownNow();
+    }
+
+    private PayrollJob submit(String payrollId, PayrollJobType type, String userId) {
+        // Only one active job per payroll and operation, enforced by the unique
+        // payroll_type_active index; resubmitting returns the active one
+        LocalDateTime now = LocalDateTime.now();
+        PayrollJob job = new PayrollJob();
+        job.setPayrollId(payrollId);
+        job.setType(type);
+        job.setStatus(PayrollJobStatus.QUEUED);
+        job.setActive(true);
+        job.setRequestedBy(userId);
+        job.setCreatedAt(now);
+        job.setHeartbeatAt(now);
+        try {
+            job = payrollJobRepository.insert(job);
+        } catch (DuplicateKeyException e) {
+            return payrollJobRepository.findFirstByPayrollIdAndTypeAndStatusIn(payrollId, type, ACTIVE_STATUSES)
+                    .orElseThrow(() -> new RuntimeException("Payroll job is finishing; try again"));
+        }
+
+        String jobId = job.getId();
+        executor.execute(() -> run(jobId, false));
+        return job;
+    }
+
+    private void run(String jobId, boolean resumeStale) {
+        PayrollJob job = claim(jobId, resumeStale);
+        if (job == null) {
+            return; // finished, or claimed by another node
+        }
+
+        // Heartbeat on its own timer, so long stretches without a checkpoint
+        // (prefetching, aggregations) do not look stale to the resume sweep
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleWithFixedDelay(() -> heartbeat(jobId),
+                HEARTBEAT_INTERVAL.toMillis(), HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        try {
+            switch (job.getType()) {
+                case GENERATE_ENTRIES -> payrollService.generatePayrollEntries(job.getPayrollId(),
+                        (processed, total) -> checkpoint(jobId, processed, total));
+                case APPROVE -> payrollService.completeApproval(job.getPayrollId(),
+                        (processed, total) -> checkpoint(jobId, processed, total));
+                case RENDER_PAYSLIPS -> payslipPdfService.renderPayslips(job.getPayrollId(),
+                        (processed, total) -> checkpoint(jobId, processed, total));
+                case DELETE_PAYROLL -> payrollService.deletePayroll(job.getPayrollId(),
+                        (processed, total) -> checkpoint(jobId, processed, total));
+            }
+            heartbeat.cancel(false);
+            finish(jobId, PayrollJobStatus.COMPLETED, null);
+        } catch (Exception e) {
+            logger.error("Payroll job {} failed", jobId, e);
+            finish(jobId, PayrollJobStatus.FAILED, e.getMessage());
+            return;
+        } finally {
+            heartbeat.cancel(false);
+        }
+
+        // Payslips exist once approval completes; render their PDFs as a follow-up job.
+        // Outside the try above, so a failure here never marks the approval FAILED.
+        if (job.getType() == PayrollJobType.APPROVE) {
+            queueRendering(job);
+        }
+    }
+
+    private void queueRendering(PayrollJob approval) {
+        try {
+            submit(approval.getPayrollId(), PayrollJobType.RENDER_PAYSLIPS, approval.getRequestedBy());
+        } catch (RuntimeException e) {
+            logger.error("Could not queue payslip rendering for payroll {}", approval.getPayrollId(), e);
+        }
+    }
+
+    /**
+     * Atomically moves a job to RUNNING. A fresh job must still be QUEUED; a
+     * resumed one must be active with a stale heartbeat, so two nodes never run
+     * the same job concurrently.
+     */
+    private PayrollJob claim(String jobId, boolean resumeStale) {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria criteria = Criteria.where("_id").is(jobId);
+        if (resumeStale) {
+            criteria = criteria.and("status").in(ACTIVE_STATUSES).and("heartbeatAt").lt(now.minus(STALE_AFTER));
+        } else {
+            criteria = criteria.and("status").is(PayrollJobStatus.QUEUED);
+        }
+
+        PayrollJob job = mongoTemplate.findAndModify(Query.query(criteria),
+                new Update().set("status", PayrollJobStatus.RUNNING).set("heartbeatAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                PayrollJob.class);
+        if (job != null && job.getStartedAt() == null) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(jobId)),
+                    new Update().set("startedAt", now), PayrollJob.class);
+            job.setStartedAt(now);
+        }
+        return job;
+    }
+
+    private void heartbeat(String jobId) {
+        try {
+            Query running = Query.query(Criteria.where("_id").is(jobId).and("status").is(PayrollJobStatus.RUNNING));
+            mongoTemplate.updateFirst(running, new Update().set("heartbeatAt", LocalDateTime.now()), PayrollJob.class);
+        } catch (RuntimeException e) {
+            logger.warn("Could not write heartbeat of payroll job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private void checkpoint(String jobId, int processed, int total) {
+        PayrollJob job = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(jobId)),
+                new Update().set("processed", processed).set("total", total).set("heartbeatAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                PayrollJob.class);
+        publish(job);
+    }
+
+    private void finish(String jobId, PayrollJobStatus status, String error) {
+        PayrollJob job = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(jobId)),
+                new Update().set("status", status).set("error", error).set("completedAt", LocalDateTime.now())
+                        .unset("active"),
+                FindAndModifyOptions.options().returnNew(true),
+                PayrollJob.class);
+        publish(job);
+    }
+
+    private void publish(PayrollJob job) {
+        if (job != null) {
+            messagingTemplate.convertAndSend("/topic/payroll/jobs/" + job.getId(), convertToResponse(job));
+        }
+    }
+
+    private PayrollJobResponse convertToResponse(PayrollJob job) {
+        PayrollJobResponse response = new PayrollJobResponse();
+        response.setId(job.getId());
+        response.setPayrollId(job.getPayrollId());
+        response.setType(job.getType());
+        response.setStatus(job.getStatus());
+        response.setProcessed(job.getProcessed());
+        response.setTotal(job.getTotal());
+        response.setError(job.getError());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setCompletedAt(job.getCompletedAt());
+
+        if (job.getStatus() == PayrollJobStatus.COMPLETED) {
+            response.setPercentComplete(100.0);
+            response.setEtaSeconds(0L);
+        } else if (job.getTotal() > 0) {
+            response.setPercentComplete(100.0 * job.getProcessed() / job.getTotal());
+            if (job.getStatus() == PayrollJobStatus.RUNNING && job.getProcessed() > 0 && job.getStartedAt() != null) {
+                long elapsedMillis = Duration.between(job.getStartedAt(), LocalDateTime.now()).toMillis();
+                long remaining = job.getTotal() - job.getProcessed();
+                response.setEtaSeconds(elapsedMillis * remaining / job.getProcessed() / 1000);
+            }
+        }
+        return response;
+    }
+}
@@ -3,23 +3,53 @@ package com.empowerly.service;
 import com.empowerly.dto.*;
 import com.empowerly.model.*;
 import com.empowerly.repository.*;
+import com.mongodb.bulk.BulkWriteError;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PayrollService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PayrollService.class);
+
     private final PayrollRepository payrollRepository;
     private final PayrollEntryRepository payrollEntryRepository;
     private final SalaryStructureRepository salaryStructureRepository;
     private final PayslipRepository payslipRepository;
     private final UserRepository userRepository;
+    private final PayrollAttendanceService payrollAttendanceService;
+    private final PayrollSimulationService payrollSimulationService;
+    private final SalaryStructureIndex salaryStructureIndex;
+    private final PayslipPdfService payslipPdfService;
+    private final MongoTemplate mongoTemplate;
+    private final JobLeaseService jobLeaseService;
+    private final WorkingDayCalendar workingDayCalendar;
+
+    private static final int ENTRY_WRITE_CHUNK_SIZE = 1000;
+    private static final int DUPLICATE_KEY = 11000;
+
+    // Per-thread allowance and deduction buffers for the salary kernel; entries are built on a parallel stream
+    private static final ThreadLocal<long[][]> SALARY_BUFFERS = ThreadLocal.withInitial(
+            () -> new long[][] { new long[SalaryKernel.ALLOWANCE_SLOTS], new long[SalaryKernel.DEDUCTION_SLOTS] });
 
     // ==================== HR METHODS ====================
 
@@ -38,91 +68,141 @@ public class PayrollService {
         payroll.setHrNotes(request.getHrNotes());
         payroll.setGeneratedAt(LocalDateTime.now());
         payroll.setTotalEmployees(0);
-        payroll.setTotalAmount(0.0);
+        payroll.setTotalAmountMinor(0);
 
         payroll = payrollRepository.save(payroll);
         return convertToPayrollResponse(payroll);
     }
 
-    public PayrollResponse generatePayrollEntries(String payrollId) {
+    public void validateGeneration(String payrollId) {
         Payroll payroll = payrollRepository.findById(payrollId)
                 .orElseThrow(() -> new RuntimeException("Payroll not found"));
 
         if (payroll.getStatus() != PayrollStatus.DRAFT) {
             throw new RuntimeException("Can only generate entries for DRAFT payroll");
         }
+    }
 
-        // Get all users in the database
-        List<User> employees = userRepository.findAll();
+    /**
+     * Generates entries chunk by chunk, reporting (processed, total) after each
+     * chunk is written. Employees that already have an entry in this payroll are
+     * skipped, so re-running after an interruption resumes instead of duplicating.
+     */
+    public PayrollResponse generatePayrollEntries(String payrollId, BiConsumer<Integer, Integer> progress) {
+        Payroll payroll = payrollRepository.findById(payrollId)
+                .orElseThrow(() -> new RuntimeException("Payroll not found"));
 
-        int totalEmployees = 0;
-        double totalAmount = 0.0;
+        if (payroll.getStatus() != PayrollStatus.DRAFT) {
+            throw new RuntimeException("Can only generate entries for DRAFT payroll");
+        }
 
-        for (User employee : employees) {
-            // Get salary structure - use findAllActiveByEmployeeId to handle duplicates
-            List<SalaryStructure> salaryStructures = salaryStructureRepository
-                    .findAllActiveByEmployeeId(employee.getId(), LocalDate.now());
+        // The structure in force today for every employee, resolved from the
+        // in-memory effective-date index without querying Mongo
+        Map<String, SalaryStructure> structuresByEmployee = salaryStructureIndex.findAllActive(LocalDate.now());
 
-            if (salaryStructures.isEmpty()) {
-                continue; // Skip users without salary structure
-            }
+        // Users without a salary structure are skipped
+        List<User> employees = userRepository.findAllById(structuresByEmployee.keySet());
 
-            // Take the first one (most recent due to sort order)
-            SalaryStructure structure = salaryStructures.get(0);
-
-            // Get attendance data
-            int workingDays = getWorkingDaysInMonth(payroll.getMonth(), payroll.getYear());
-            int presentDays = getPresentDays(employee.getId(), payroll.getMonth(), payroll.getYear());
-            int paidLeaves = getPaidLeaves(employee.getId(), payroll.getMonth(), payroll.getYear());
-            int unpaidLeaves = getUnpaidLeaves(employee.getId(), payroll.getMonth(), payroll.getYear());
-
-            // Create payroll entry
-            PayrollEntry entry = new PayrollEntry();
-            entry.setPayrollId(payrollId);
-            entry.setEmployeeId(employee.getId());
-            entry.setEmployeeName(employee.getName());
-            entry.setBasicSalary(structure.getBasicSalary());
-
-            // Set allowances
-            Map<String, Double> allowances = new HashMap<>();
-            allowances.put("HRA", structure.getHra());
-            allowances.put("DA", structure.getDa());
-            allowances.put("Travel", structure.getTravelAllowance());
-            allowances.put("Medical", structure.getMedicalAllowance());
-            if (structure.getOtherAllowances() > 0) {
-                allowances.put("Other", structure.getOtherAllowances());
-            }
-            entry.setAllowances(allowances);
+        // Entries written by an earlier, interrupted run are the checkpoint
+        Set<String> alreadyGenerated = payrollEntryRepository.findEmployeeIdsByPayrollId(payrollId).stream()
+                .map(PayrollEntry::getEmployeeId)
+                .collect(Collectors.toSet());
+        List<User> pending = employees.stream()
+                .filter(employee -> !alreadyGenerated.contains(employee.getId()))
+                .collect(Collectors.toList());
+
+        // Attendance and leave days for the whole org in two aggregations
+        Map<String, PayrollAttendanceService.MonthlyAttendance> attendanceByEmployee = payrollAttendanceService
+                .summarizeMonth(payroll.getMonth(), payroll.getYear());
+
+        int total = employees.size();
+        int processed = total - pending.size();
+        progress.accept(processed, total);
 
-            // Set attendance
-            entry.setWorkingDays(workingDays);
-            entry.setPresentDays(presentDays);
-            entry.setPaidLeaves(paidLeaves);
-            entry.setUnpaidLeaves(unpaidLeaves);
-            entry.setOvertimeHours(0.0);
-            entry.setPenalties(0.0);
+        for (int from = 0; from < pending.size(); from += ENTRY_WRITE_CHUNK_SIZE) {
+            List<User> chunk = pending.subList(from, Math.min(from + ENTRY_WRITE_CHUNK_SIZE, pending.size()));
 
-            // Calculate salary
-            calculateSalary(entry, structure);
+            // Entry computation is CPU-only, so it fans out across cores
+            List<PayrollEntry> entries = chunk.parallelStream()
+                    .map(employee -> buildPayrollEntry(payroll, employee,
+                            structuresByEmployee.get(employee.getId()),
+                            attendanceByEmployee.getOrDefault(employee.getId(),
+                                    new PayrollAttendanceService.MonthlyAttendance())))
+                    .collect(Collectors.toList());
 
-            entry.setStatus(PayrollEntryStatus.GENERATED);
-            payrollEntryRepository.save(entry);
+            insertEntries(entries);
 
-            totalEmployees++;
-            totalAmount += entry.getNetSalary();
+            processed += entries.size();
+            progress.accept(processed, total);
         }
 
-        // Update payroll
-        payroll.setTotalEmployees(totalEmployees);
-        payroll.setTotalAmount(totalAmount);
-        payroll = payrollRepository.save(payroll);
+        return convertToPayrollResponse(updatePayrollTotals(payroll));
+    }
 
-        return convertToPayrollResponse(payroll);
+    /**
+     * One unordered bulk insert per chunk rather than one save per entry. An
+     * entry that already exists (written by an overlapping run of the same job)
+     * is left as it is; any other write error fails the chunk.
+     */
+    private void insertEntries(List<PayrollEntry> entries) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PayrollEntry.class);
+        bulk.insert(entries);
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            logger.warn("Skipped {} payroll entries that were already generated", e.getErrors().size());
+        }
+    }
+
+    private PayrollEntry buildPayrollEntry(Payroll payroll, User employee, SalaryStructure structure,
+            PayrollAttendanceService.MonthlyAttendance attendance) {
+        // Get attendance data
+        int workingDays = getWorkingDaysInMonth(payroll.getMonth(), payroll.getYear());
+        int presentDays = attendance.getPresentDays();
+        int paidLeaves = attendance.getPaidLeaveDays();
+        int unpaidLeaves = attendance.getUnpaidLeaveDays();
+
+        // Create payroll entry
+        PayrollEntry entry = new PayrollEntry();
+        entry.setPayrollId(payroll.getId());
+        entry.setEmployeeId(employee.getId());
+        entry.setEmployeeName(employee.getName());
+        long basic = SalaryKernel.toMinor(structure.getBasicSalary());
+        entry.setBasicSalary(SalaryKernel.toMajor(basic));
+
+        // Set allowances
+        long[] allowances = SALARY_BUFFERS.get()[0];
+        allowances[SalaryKernel.HRA] = SalaryKernel.toMinor(structure.getHra());
+        allowances[SalaryKernel.DA] = SalaryKernel.toMinor(structure.getDa());
+        allowances[SalaryKernel.TRAVEL] = SalaryKernel.toMinor(structure.getTravelAllowance());
+        allowances[SalaryKernel.MEDICAL] = SalaryKernel.toMinor(structure.getMedicalAllowance());
+        allowances[SalaryKernel.OTHER] = SalaryKernel.toMinor(structure.getOtherAllowances());
+        entry.setAllowances(SalaryKernel.allowanceMap(allowances));
+
+        // Set attendance
+        entry.setWorkingDays(workingDays);
+        entry.setPresentDays(presentDays);
+        entry.setPaidLeaves(paidLeaves);
+        entry.setUnpaidLeaves(unpaidLeaves);
+        entry.setOvertimeHours(0.0);
+        entry.setPenalties(0.0);
+
+        // Calculate salary
+        calculateSalary(entry, structure, basic, SalaryKernel.sum(allowances));
+
+        entry.setStatus(PayrollEntryStatus.GENERATED);
+        return entry;
     }
 
     public PayrollEntryResponse updatePayrollEntry(String entryId, UpdatePayrollEntryRequest request) {
         PayrollEntry entry = payrollEntryRepository.findById(entryId)
                 .orElseThrow(() -> new RuntimeException("Payroll entry not found"));
+        requireEditable(entry);
 
         // Update values
         entry.setBasicSalary(request.getBasicSalary());
@@ -136,17 +216,61 @@ public class PayrollService {
         entry.setNotes(request.getNotes());
 
         // Get salary structure for tax/PF percentages
-        SalaryStructure structure = salaryStructureRepository
-                .findActiveByEmployeeId(entry.getEmployeeId(), LocalDate.now())
+        SalaryStructure structure = salaryStructureIndex
+                .findActive(entry.getEmployeeId(), LocalDate.now())
                 .orElseThrow(() -> new RuntimeException("Salary structure not found"));
 
         // Recalculate salary
-        calculateSalary(entry, structure);
+        long allowanceTotal = 0;
+        if (entry.getAllowances() != null) {
+            for (Double allowance : entry.getAllowances().values()) {
+                allowanceTotal += allowance == null ? 0 : SalaryKernel.toMinor(allowance);
+            }
+        }
+        calculateSalary(entry, structure, SalaryKernel.toMinor(entry.getBasicSalary()), allowanceTotal);
+
+        // The status condition keeps an entry approved in the meantime from being replaced;
+        // the replaced document gives the exact previous net, even under concurrent edits
+        PayrollEntry previous = mongoTemplate.findAndReplace(
+                Query.query(Criteria.where("_id").is(entryId).and("status").ne(PayrollEntryStatus.APPROVED)),
+                entry);
+        if (previous == null) {
+            throw new RuntimeException(payrollEntryRepository.existsById(entryId)
+                    ? "Approved payroll entries cannot be changed"
+                    : "Payroll entry not found");
+        }
+        adjustPayrollTotals(entry.getPayrollId(), 0,
+                SalaryKernel.toMinor(entry.getNetSalary()) - SalaryKernel.toMinor(previous.getNetSalary()));
 
-        entry = payrollEntryRepository.save(entry);
         return convertToPayrollEntryResponse(entry);
     }
 
+    public void deletePayrollEntry(String entryId) {
+        PayrollEntry entry = payrollEntryRepository.findById(entryId)
+                .orElseThrow(() -> new RuntimeException("Payroll entry not found"));
+        requireEditable(entry);
+
+        PayrollEntry removed = mongoTemplate.findAndRemove(
+                Query.query(Criteria.where("_id").is(entryId).and("status").ne(PayrollEntryStatus.APPROVED)),
+                PayrollEntry.class);
+        if (removed == null) {
+            throw new RuntimeException(payrollEntryRepository.existsById(entryId)
+                    ? "Approved payroll entries cannot be changed"
+                    : "Payroll entry not found");
+        }
+        adjustPayrollTotals(removed.getPayrollId(), -1, -SalaryKernel.toMinor(removed.getNetSalary()));
+    }
+
+    /**
+     * Entries can be edited or removed until they, or their payroll, are approved.
+     */
+    private void requireEditable(PayrollEntry entry) {
+        if (entry.getStatus() == PayrollEntryStatus.APPROVED
+                || payrollRepository.existsByIdAndStatus(entry.getPayrollId(), PayrollStatus.APPROVED)) {
+            throw new RuntimeException("Approved payroll entries cannot be changed");
+        }
+    }
+
     public PayrollResponse submitForApproval(String payrollId) {
         Payroll payroll = payrollRepository.findById(payrollId)
                 .orElseThrow(() -> new RuntimeException("Payroll not found"));
@@ -182,6 +306,10 @@ public class PayrollService {
 
     // ==================== ADMIN METHODS ====================
 
+    /**
+     * Approves the payroll header. Payslip issuance and entry status updates run
+     * afterwards as a job via {@link #completeApproval}.
+     */
     public PayrollResponse approvePayroll(String payrollId, String adminId, ApprovePayrollRequest request) {
         Payroll payroll = payrollRepository.findById(payrollId)
                 .orElseThrow(() -> new RuntimeException("Payroll not found"));
@@ -196,17 +324,38 @@ public class PayrollService {
         payroll.setApprovedAt(LocalDateTime.now());
         payroll = payrollRepository.save(payroll);
 
-        // Generate payslips for all entries
-        generatePayslips(payrollId);
+        return convertToPayrollResponse(payroll);
+    }
+
+    /**
+     * Issues payslips with idempotent bulk upserts keyed by (employeeId, month,
+     * year), then flips every entry to APPROVED with one updateMany. Re-running
+     * after an interruption rewrites the same payslips instead of duplicating them.
+     */
+    public void completeApproval(String payrollId, BiConsumer<Integer, Integer> progress) {
+        Payroll payroll = payrollRepository.findById(payrollId)
+                .orElseThrow(() -> new RuntimeException("Payroll not found"));
+
+        if (payroll.getStatus() != PayrollStatus.APPROVED) {
+            throw new RuntimeException("Payroll is not approved");
+        }
 
-        // Update entry statuses
         List<PayrollEntry> entries = payrollEntryRepository.findByPayrollId(payrollId);
-        entries.forEach(entry -> {
-            entry.setStatus(PayrollEntryStatus.APPROVED);
-            payrollEntryRepository.save(entry);
-        });
+        int total = entries.size();
+        progress.accept(0, total);
 
-        return convertToPayrollResponse(payroll);
+        for (int from = 0; from < total; from += ENTRY_WRITE_CHUNK_SIZE) {
+            List<PayrollEntry> chunk = entries.subList(from, Math.min(from + ENTRY_WRITE_CHUNK_SIZE, total));
+            issuePayslips(payroll, chunk);
+            progress.accept(from + chunk.size(), total);
+        }
+
+        // Update entry statuses
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("payrollId").is(payrollId)
+                        .and("status").ne(PayrollEntryStatus.APPROVED)),
+                new Update().set("status", PayrollEntryStatus.APPROVED),
+                PayrollEntry.class);
     }
 
     public PayrollResponse rejectPayroll(String payrollId, String adminId, RejectPayrollRequest request) {
@@ -226,29 +375,40 @@ public class PayrollService {
         return convertToPayrollResponse(payroll);
     }
 
-    public void deletePayroll(String payrollId) {
-        // Check if payroll exists
-        Payroll payroll = payrollRepository.findById(payrollId)
-                .orElseThrow(() -> new RuntimeException("Payroll not found"));
+    /**
+     * Whether deleting the payroll touches enough documents to run as a job
+     * rather than inside the HTTP request.
+     */
+    public boolean isLargeDeletion(String payrollId) {
+        if (!payrollRepository.existsById(payrollId)) {
+            throw new RuntimeException("Payroll not found");
+        }
+        return payrollEntryRepository.countByPayrollId(payrollId) > ENTRY_WRITE_CHUNK_SIZE;
+    }
 
-        // Delete all payslips associated with this payroll's month and year
-        List<PayrollEntry> entries = payrollEntryRepository.findByPayrollId(payrollId);
-        for (PayrollEntry entry : entries) {
-            // Delete all payslips for this employee, month, and year (handles duplicates)
-            List<Payslip> payslips = payslipRepository.findAllByEmployeeIdAndMonthAndYear(
-                    entry.getEmployeeId(),
-                    payroll.getMonth(),
-                    payroll.getYear());
-            if (!payslips.isEmpty()) {
-                payslipRepository.deleteAll(payslips);
-            }
+    /**
+     * Cascade delete in three server-side deleteMany calls: payslips for the
+     * payroll's month, its entries, then the header. The header goes last, so a
+     * run interrupted part-way can simply be repeated; once the header is gone
+     * there is nothing left to do.
+     */
+    public void deletePayroll(String payrollId, BiConsumer<Integer, Integer> progress) {
+        Payroll payroll = payrollRepository.findById(payrollId).orElse(null);
+        if (payroll == null) {
+            return;
         }
+        progress.accept(0, 3);
 
-        // Delete all payroll entries
-        payrollEntryRepository.deleteAll(entries);
+        mongoTemplate.remove(Query.query(Criteria.where("month").is(payroll.getMonth())
+                .and("year").is(payroll.getYear())), Payslip.class);
+        payslipPdfService.deletePayslipPdfs(payroll.getMonth(), payroll.getYear());
+        progress.accept(1, 3);
 
-        // Delete the payroll itself
-        payrollRepository.delete(payroll);
+        mongoTemplate.remove(Query.query(Criteria.where("payrollId").is(payrollId)), PayrollEntry.class);
+        progress.accept(2, 3);
+
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(payrollId)), Payroll.class);
+        progress.accept(3, 3);
     }
 
     // ==================== EMPLOYEE METHODS ====================
@@ -260,19 +420,31 @@ public class PayrollService {
     }
 
     public PayslipResponse getPayslip(String employeeId, int month, int year) {
-        Payslip payslip = payslipRepository.findByEmployeeIdAndMonthAndYear(employeeId, month, year)
+        // Payslips issued before approval became idempotent may still be duplicated
+        Payslip payslip = payslipRepository.findFirstByEmployeeIdAndMonthAndYearOrderByGeneratedAtDesc(
+                employeeId, month, year)
                 .orElseThrow(() -> new RuntimeException("Payslip not found"));
         return convertToPayslipResponse(payslip);
     }
 
     public void saveSalaryStructure(SalaryStructure salaryStructure) {
-        salaryStructure.setCreatedAt(LocalDateTime.now());
-        salaryStructure.setUpdatedAt(LocalDateTime.now());
+        List<SalaryStructure> superseded = checkEffectivePeriod(salaryStructure);
+        LocalDateTime now = LocalDateTime.now();
+        for (SalaryStructure previous : superseded) {
+            previous.setEffectiveTo(salaryStructure.getEffectiveFrom().minusDays(1));
+            previous.setUpdatedAt(now);
+        }
+        salaryStructureRepository.saveAll(superseded);
+
+        salaryStructure.setCreatedAt(now);
+        salaryStructure.setUpdatedAt(now);
         salaryStructureRepository.save(salaryStructure);
+        salaryStructureIndex.refresh(salaryStructure.getEmployeeId());
+        payrollSimulationService.invalidate();
     }
 
     public SalaryStructure getSalaryStructureByEmployee(String employeeId) {
-        return salaryStructureRepository.findActiveByEmployeeId(employeeId, LocalDate.now())
+        return salaryStructureIndex.findActive(employeeId, LocalDate.now())
                 .orElse(null);
     }
 
@@ -280,94 +452,187 @@ public class PayrollService {
         return salaryStructureRepository.findAll();
     }
 
-    // ==================== CALCULATION ENGINE ====================
-
-    private void calculateSalary(PayrollEntry entry, SalaryStructure structure) {
-        // Calculate gross salary
-        double grossSalary = entry.getBasicSalary();
-        for (Double allowance : entry.getAllowances().values()) {
-            grossSalary += allowance;
+    /**
+     * Rejects a structure whose effective period overlaps another structure of
+     * the same employee, so lookups by date never have to pick between two. An
+     * open-ended structure that started earlier is superseded by a new
+     * open-ended one (the usual way a revision is recorded) and is returned so
+     * the caller can close it the day before the new one takes effect.
+     */
+    private List<SalaryStructure> checkEffectivePeriod(SalaryStructure structure) {
+        LocalDate from = structure.getEffectiveFrom();
+        LocalDate to = structure.getEffectiveTo();
+        if (structure.getEmployeeId() == null) {
+            throw new RuntimeException("Employee is required");
+        }
+        if (from == null) {
+            throw new RuntimeException("Effective from date is required");
+        }
+        if (to != null && to.isBefore(from)) {
+            throw new RuntimeException("Effective to date cannot be before effective from date");
         }
-        entry.setGrossSalary(grossSalary);
 
-        // Calculate deductions
-        Map<String, Double> deductions = new HashMap<>();
+        List<SalaryStructure> superseded = new ArrayList<>();
+        for (SalaryStructure existing : salaryStructureRepository.findByEmployeeId(structure.getEmployeeId())) {
+            if (existing.getId().equals(structure.getId()) || existing.getEffectiveFrom() == null) {
+                continue;
+            }
+            LocalDate existingFrom = existing.getEffectiveFrom();
+            LocalDate existingTo = existing.getEffectiveTo();
+            boolean overlaps = (existingTo == null || !existingTo.isBefore(from))
+                    && (to == null || !existingFrom.isAfter(to));
+            if (!overlaps) {
+                continue;
+            }
+            if (to == null && existingTo == null && existingFrom.isBefore(from)) {
+                superseded.add(existing);
+            } else {
+                throw new RuntimeException("Salary structure overlaps the one effective from " + existingFrom
+                        + (existingTo != null ? " to " + existingTo : ""));
+            }
+        }
+        return superseded;
+    }
 
-        // Tax deduction
-        double tax = grossSalary * (structure.getTaxPercentage() / 100);
-        deductions.put("Tax", tax);
+    // ==================== CALCULATION ENGINE ====================
 
-        // PF deduction
-        double pf = entry.getBasicSalary() * (structure.getPfPercentage() / 100);
-        deductions.put("PF", pf);
+    /**
+     * Runs the minor-unit salary kernel for an entry whose basic salary and
+     * allowance total are already known, then writes the results back in major
+     * units together with the named deduction map.
+     */
+    private void calculateSalary(PayrollEntry entry, SalaryStructure structure, long basic, long allowanceTotal) {
+        long[] deductions = SALARY_BUFFERS.get()[1];
+        long gross = basic + allowanceTotal;
+        long net = SalaryKernel.calculate(basic, gross,
+                SalaryKernel.toBasisPoints(structure.getTaxPercentage()),
+                SalaryKernel.toBasisPoints(structure.getPfPercentage()),
+                entry.getWorkingDays(), entry.getUnpaidLeaves(),
+                SalaryKernel.toMinor(entry.getPenalties()), deductions);
+
+        entry.setGrossSalary(SalaryKernel.toMajor(gross));
+        entry.setDeductions(SalaryKernel.deductionMap(deductions));
+        entry.setNetSalary(SalaryKernel.toMajor(net));
+    }
 
-        // Unpaid leave deduction
-        if (entry.getUnpaidLeaves() > 0) {
-            double unpaidLeaveDeduction = (entry.getBasicSalary() / entry.getWorkingDays()) * entry.getUnpaidLeaves();
-            deductions.put("UnpaidLeave", unpaidLeaveDeduction);
-        }
+    private void issuePayslips(Payroll payroll, List<PayrollEntry> entries) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payslip.class);
+        LocalDateTime now = LocalDateTime.now();
 
-        // Penalties
-        if (entry.getPenalties() > 0) {
-            deductions.put("Penalties", entry.getPenalties());
+        for (PayrollEntry entry : entries) {
+            Query key = Query.query(Criteria.where("employeeId").is(entry.getEmployeeId())
+                    .and("month").is(payroll.getMonth())
+                    .and("year").is(payroll.getYear()));
+
+            Update payslip = new Update()
+                    .set("payrollEntryId", entry.getId())
+                    .set("employeeName", entry.getEmployeeName())
+                    .set("basicSalary", entry.getBasicSalary())
+                    .set("allowances", entry.getAllowances())
+                    .set("deductions", entry.getDeductions())
+                    .set("grossSalary", entry.getGrossSalary())
+                    .set("netSalary", entry.getNetSalary())
+                    .set("workingDays", entry.getWorkingDays())
+                    .set("presentDays", entry.getPresentDays())
+                    .set("paidLeaves", entry.getPaidLeaves())
+                    .set("unpaidLeaves", entry.getUnpaidLeaves())
+                    .set("overtimeHours", entry.getOvertimeHours())
+                    // Figures may have changed since the last render; force a fresh PDF
+                    .unset("pdfUrl")
+                    .setOnInsert("generatedAt", now);
+
+            bulk.upsert(key, payslip);
         }
 
-        entry.setDeductions(deductions);
-
-        // Calculate net salary
-        double totalDeductions = deductions.values().stream().mapToDouble(Double::doubleValue).sum();
-        double netSalary = grossSalary - totalDeductions;
-        entry.setNetSalary(netSalary);
+        bulk.execute();
     }
 
-    private void generatePayslips(String payrollId) {
-        Payroll payroll = payrollRepository.findById(payrollId).orElseThrow();
-        List<PayrollEntry> entries = payrollEntryRepository.findByPayrollId(payrollId);
+    /**
+     * Recomputes header totals from the stored entries with one aggregation, so
+     * entries written by earlier attempts of a resumed run are included.
+     */
+    private Payroll updatePayrollTotals(Payroll payroll) {
+        Document totals = entryTotals(payroll.getId());
+        payroll.setTotalEmployees(totals != null ? ((Number) totals.get("totalEmployees")).intValue() : 0);
+        payroll.setTotalAmountMinor(totals != null ? ((Number) totals.get("totalMinor")).longValue() : 0);
+        return payrollRepository.save(payroll);
+    }
 
-        for (PayrollEntry entry : entries) {
-            Payslip payslip = new Payslip();
-            payslip.setPayrollEntryId(entry.getId());
-            payslip.setEmployeeId(entry.getEmployeeId());
-            payslip.setEmployeeName(entry.getEmployeeName());
-            payslip.setMonth(payroll.getMonth());
-            payslip.setYear(payroll.getYear());
-            payslip.setBasicSalary(entry.getBasicSalary());
-            payslip.setAllowances(entry.getAllowances());
-            payslip.setDeductions(entry.getDeductions());
-            payslip.setGrossSalary(entry.getGrossSalary());
-            payslip.setNetSalary(entry.getNetSalary());
-            payslip.setWorkingDays(entry.getWorkingDays());
-            payslip.setPresentDays(entry.getPresentDays());
-            payslip.setPaidLeaves(entry.getPaidLeaves());
-            payslip.setUnpaidLeaves(entry.getUnpaidLeaves());
-            payslip.setOvertimeHours(entry.getOvertimeHours());
-            payslip.setGeneratedAt(LocalDateTime.now());
-
-            payslipRepository.save(payslip);
+    /**
+     * Applies an entry edit to the header with one atomic {@code $inc} of whole
+     * paise, so concurrent edits commute and the total never drifts.
+     */
+    private void adjustPayrollTotals(String payrollId, int employeeDelta, long netDeltaMinor) {
+        if (employeeDelta == 0 && netDeltaMinor == 0) {
+            return;
         }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(payrollId)),
+                new Update().inc("totalEmployees", employeeDelta).inc("totalAmountMinor", netDeltaMinor),
+                Payroll.class);
     }
 
-    // ==================== HELPER METHODS ====================
+    private Document entryTotals(String payrollId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("payrollId").is(payrollId)),
+                context -> entryTotalsGroup(null));
+        return mongoTemplate.aggregate(aggregation, PayrollEntry.class, Document.class).getUniqueMappedResult();
+    }
 
-    private int getWorkingDaysInMonth(int month, int year) {
-        // Simplified: assume 22 working days per month
-        return 22;
+    @Scheduled(cron = "0 30 2 * * *")
+    public void reconcilePayrollTotalsNightly() {
+        jobLeaseService.runExclusively("payroll-reconcile-totals", Duration.ofMinutes(30), Duration.ofMinutes(5),
+                this::reconcilePayrollTotals);
     }
 
-    private int getPresentDays(String employeeId, int month, int year) {
-        // Get from attendance repository
-        // Simplified implementation
-        return 20;
+    /**
+     * Verifies every payroll header against its entries with a single aggregation
+     * grouped by payroll, correcting any header that has drifted. Runs nightly and
+     * on demand; returns the number of headers corrected.
+     */
+    public int reconcilePayrollTotals() {
+        Aggregation aggregation = Aggregation.newAggregation(context -> entryTotalsGroup("$payrollId"));
+        Map<String, Document> totalsByPayroll = new HashMap<>();
+        for (Document totals : mongoTemplate.aggregate(aggregation, PayrollEntry.class, Document.class)) {
+            totalsByPayroll.put(String.valueOf(totals.get("_id")), totals);
+        }
+
+        int corrected = 0;
+        for (Payroll payroll : payrollRepository.findAll()) {
+            Document totals = totalsByPayroll.get(payroll.getId());
+            int employees = totals != null ? ((Number) totals.get("totalEmployees")).intValue() : 0;
+            long amountMinor = totals != null ? ((Number) totals.get("totalMinor")).longValue() : 0;
+
+            if (payroll.getTotalEmployees() != employees
+                    || payroll.getTotalAmountMinor() != amountMinor) {
+                logger.warn("Payroll {} totals drifted: header {} / {}, entries {} / {}", payroll.getId(),
+                        payroll.getTotalEmployees(), SalaryKernel.toMajor(payroll.getTotalAmountMinor()), employees,
+                        SalaryKernel.toMajor(amountMinor));
+                // Also drops the rupee total that headers carried before totals moved to paise
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(payroll.getId())),
+                        new Update().set("totalEmployees", employees)
+                                .set("totalAmountMinor", amountMinor)
+                                .unset("totalAmount"),
+                        Payroll.class);
+                corrected++;
+            }
+        }
+        return corrected;
     }
 
-    private int getPaidLeaves(String employeeId, int month, int year) {
-        // Get from leave repository
-        return 1;
+    static Document entryTotalsGroup(Object groupKey) {
+        // Sum in paise so thousands of entries add up exactly
+        return new Document("$group", new Document("_id", groupKey)
+                .append("totalEmployees", new Document("$sum", 1))
+                .append("totalMinor", new Document("$sum", new Document("$toLong",
+                        new Document("$round", List.of(
+                                new Document("$multiply", List.of("$netSalary", 100)), 0))))));
     }
 
-    private int getUnpaidLeaves(String employeeId, int month, int year) {
-        // Get from leave repository
-        return 0;
+    // ==================== HELPER METHODS ====================
+
+    private int getWorkingDaysInMonth(int month, int year) {
+        LocalDate monthStart = LocalDate.of(year, month, 1);
+        return workingDayCalendar.workingDays(monthStart, monthStart.plusMonths(1).minusDays(1)).size();
     }
 
     private PayrollResponse convertToPayrollResponse(Payroll payroll) {
@@ -379,7 +644,7 @@ public class PayrollService {
         response.setCreatedBy(payroll.getCreatedBy());
         response.setApprovedBy(payroll.getApprovedBy());
         response.setTotalEmployees(payroll.getTotalEmployees());
-        response.setTotalAmount(payroll.getTotalAmount());
+        response.setTotalAmount(SalaryKernel.toMajor(payroll.getTotalAmountMinor()));
         response.setGeneratedAt(payroll.getGeneratedAt());
         response.setSubmittedAt(payroll.getSubmittedAt());
         response.setApprovedAt(payroll.getApprovedAt());
@@ -0,0 +1,234 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.PayrollSimulationRequest;
+import com.empowerly.dto.PayrollSimulationResponse;
+import com.empowerly.dto.PayrollSimulationResponse.EmployeeDelta;
+import com.empowerly.dto.PayrollSimulationResponse.SimulationTotals;
+import com.empowerly.model.SalaryStructure;
+import com.empowerly.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What-if payroll runs for finance. Active salary structures are loaded into a
+ * columnar snapshot (one primitive array per component) that is reused across
+ * scenarios; each scenario is a single pass of the salary kernel over the
+ * columns and writes nothing. Attendance is left out: both sides of the
+ * comparison are a full month without unpaid leave or penalties, so the deltas
+ * isolate the rule change.
+ */
+@Service
+@RequiredArgsConstructor
+public class PayrollSimulationService {
+
+    private static final Duration SNAPSHOT_TTL = Duration.ofMinutes(5);
+    private static final String NO_DEPARTMENT = "UNASSIGNED";
+
+    private final SalaryStructureIndex salaryStructureIndex;
+    private final MongoTemplate mongoTemplate;
+
+    private volatile SalaryColumns snapshot;
+
+    public PayrollSimulationResponse simulate(PayrollSimulationRequest request) {
+        long start = System.nanoTime();
+        SalaryColumns columns = currentSnapshot();
+
+        long[] caps = allowanceCaps(request.getAllowanceCaps());
+        long taxOverride = request.getTaxPercentage() != null
+                ? SalaryKernel.toBasisPoints(request.getTaxPercentage())
+                : -1;
+        long pfOverride = request.getPfPercentage() != null
+                ? SalaryKernel.toBasisPoints(request.getPfPercentage())
+                : -1;
+
+        // Per department: baseline gross/deductions/net, simulated gross/deductions/net
+        long[][] departmentSums = new long[columns.departments.length][6];
+        long[] simulatedNet = new long[columns.size];
+        long[] deductions = new long[SalaryKernel.DEDUCTION_SLOTS];
+
+        for (int i = 0; i < columns.size; i++) {
+            long gross = columns.basic[i];
+            for (int slot = 0; slot < SalaryKernel.ALLOWANCE_SLOTS; slot++) {
+                long allowance = columns.allowances[slot][i];
+                gross += caps[slot] >= 0 ? Math.min(allowance, caps[slot]) : allowance;
+            }
+            long net = SalaryKernel.calculate(columns.basic[i], gross,
+                    taxOverride >= 0 ? taxOverride : columns.taxBasisPoints[i],
+                    pfOverride >= 0 ? pfOverride : columns.pfBasisPoints[i],
+                    0, 0, 0, deductions);
+            simulatedNet[i] = net;
+
+            long[] sums = departmentSums[columns.departmentIndex[i]];
+            sums[0] += columns.baselineGross[i];
+            sums[1] += columns.baselineGross[i] - columns.baselineNet[i];
+            sums[2] += columns.baselineNet[i];
+            sums[3] += gross;
+            sums[4] += gross - net;
+            sums[5] += net;
+        }
+
+        int[] departmentCounts = new int[columns.departments.length];
+        for (int index : columns.departmentIndex) {
+            departmentCounts[index]++;
+        }
+
+        long[] orgSums = new long[6];
+        List<SimulationTotals> departments = new ArrayList<>();
+        for (int d = 0; d < columns.departments.length; d++) {
+            for (int k = 0; k < orgSums.length; k++) {
+                orgSums[k] += departmentSums[d][k];
+            }
+            departments.add(toTotals(columns.departments[d], departmentCounts[d], departmentSums[d]));
+        }
+
+        PayrollSimulationResponse response = new PayrollSimulationResponse();
+        response.setStructuresLoadedAt(columns.loadedAt);
+        response.setOrganization(toTotals(null, columns.size, orgSums));
+        response.setDepartments(departments);
+        if (request.isIncludeEmployees()) {
+            List<EmployeeDelta> employees = new ArrayList<>(columns.size);
+            for (int i = 0; i < columns.size; i++) {
+                employees.add(new EmployeeDelta(columns.employeeIds[i], columns.employeeNames[i],
+                        columns.departments[columns.departmentIndex[i]],
+                        SalaryKernel.toMajor(columns.baselineNet[i]),
+                        SalaryKernel.toMajor(simulatedNet[i]),
+                        SalaryKernel.toMajor(simulatedNet[i] - columns.baselineNet[i])));
+            }
+            response.setEmployees(employees);
+        }
+        response.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    /**
+     * Drops the snapshot so the next scenario reloads salary structures.
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private SalaryColumns currentSnapshot() {
+        SalaryColumns columns = snapshot;
+        if (columns == null || columns.loadedAt.isBefore(LocalDateTime.now().minus(SNAPSHOT_TTL))) {
+            columns = loadSnapshot();
+            snapshot = columns;
+        }
+        return columns;
+    }
+
+    private SalaryColumns loadSnapshot() {
+        Map<String, SalaryStructure> structuresByEmployee = salaryStructureIndex.findAllActive(LocalDate.now());
+
+        Query userQuery = Query.query(Criteria.where("_id").in(structuresByEmployee.keySet()));
+        userQuery.fields().include("name", "department");
+        Map<String, User> usersById = new HashMap<>();
+        for (User user : mongoTemplate.find(userQuery, User.class)) {
+            usersById.put(user.getId(), user);
+        }
+
+        SalaryColumns columns = new SalaryColumns(structuresByEmployee.size());
+        Map<String, Integer> departmentIndexes = new LinkedHashMap<>();
+        long[] allowances = new long[SalaryKernel.ALLOWANCE_SLOTS];
+        long[] deductions = new long[SalaryKernel.DEDUCTION_SLOTS];
+        int i = 0;
+        for (SalaryStructure structure : structuresByEmployee.values()) {
+            User user = usersById.get(structure.getEmployeeId());
+            String department = user != null && user.getDepartment() != null
+                    ? user.getDepartment().name()
+                    : NO_DEPARTMENT;
+
+            columns.employeeIds[i] = structure.getEmployeeId();
+            columns.employeeNames[i] = user != null ? user.getName() : null;
+            columns.departmentIndex[i] = departmentIndexes.computeIfAbsent(department,
+                    key -> departmentIndexes.size());
+            columns.basic[i] = SalaryKernel.toMinor(structure.getBasicSalary());
+            allowances[SalaryKernel.HRA] = SalaryKernel.toMinor(structure.getHra());
+            allowances[SalaryKernel.DA] = SalaryKernel.toMinor(structure.getDa());
+            allowances[SalaryKernel.TRAVEL] = SalaryKernel.toMinor(structure.getTravelAllowance());
+            allowances[SalaryKernel.MEDICAL] = SalaryKernel.toMinor(structure.getMedicalAllowance());
+            allowances[SalaryKernel.OTHER] = SalaryKernel.toMinor(structure.getOtherAllowances());
+            for (int slot = 0; slot < SalaryKernel.ALLOWANCE_SLOTS; slot++) {
+                columns.allowances[slot][i] = allowances[slot];
+            }
+            columns.taxBasisPoints[i] = SalaryKernel.toBasisPoints(structure.getTaxPercentage());
+            columns.pfBasisPoints[i] = SalaryKernel.toBasisPoints(structure.getPfPercentage());
+
+            // The baseline never changes between scenarios, so compute it once here
+            columns.baselineGross[i] = columns.basic[i] + SalaryKernel.sum(allowances);
+            columns.baselineNet[i] = SalaryKernel.calculate(columns.basic[i], columns.baselineGross[i],
+                    columns.taxBasisPoints[i], columns.pfBasisPoints[i], 0, 0, 0, deductions);
+            i++;
+        }
+        columns.departments = departmentIndexes.keySet().toArray(new String[0]);
+        return columns;
+    }
+
+    private static long[] allowanceCaps(Map<String, Double> requested) {
+        long[] caps = new long[SalaryKernel.ALLOWANCE_SLOTS];
+        Arrays.fill(caps, -1);
+        if (requested != null) {
+            for (Map.Entry<String, Double> cap : requested.entrySet()) {
+                int slot = SalaryKernel.allowanceSlot(cap.getKey());
+                if (slot < 0) {
+                    throw new RuntimeException("Unknown allowance: " + cap.getKey());
+                }
+                if (cap.getValue() != null) {
+                    caps[slot] = Math.max(0, SalaryKernel.toMinor(cap.getValue()));
+                }
+            }
+        }
+        return caps;
+    }
+
+    private static SimulationTotals toTotals(String department, int employeeCount, long[] sums) {
+        return new SimulationTotals(department, employeeCount,
+                SalaryKernel.toMajor(sums[0]), SalaryKernel.toMajor(sums[3]),
+                SalaryKernel.toMajor(sums[1]), SalaryKernel.toMajor(sums[4]),
+                SalaryKernel.toMajor(sums[2]), SalaryKernel.toMajor(sums[5]),
+                SalaryKernel.toMajor(sums[5] - sums[2]));
+    }
+
+    /**
+     * Salary structures laid out column-wise, in minor units and basis points.
+     */
+    private static class SalaryColumns {
+        final int size;
+        final LocalDateTime loadedAt = LocalDateTime.now();
+        final String[] employeeIds;
+        final String[] employeeNames;
+        final int[] departmentIndex;
+        String[] departments;
+        final long[] basic;
+        final long[][] allowances;
+        final long[] taxBasisPoints;
+        final long[] pfBasisPoints;
+        final long[] baselineGross;
+        final long[] baselineNet;
+
+        SalaryColumns(int size) {
+            this.size = size;
+            this.employeeIds = new String[size];
+            this.employeeNames = new String[size];
+            this.departmentIndex = new int[size];
+            this.basic = new long[size];
+            this.allowances = new long[SalaryKernel.ALLOWANCE_SLOTS][size];
+            this.taxBasisPoints = new long[size];
+            this.pfBasisPoints = new long[size];
+            this.baselineGross = new long[size];
+            this.baselineNet = new long[size];
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.empowerly.service;
+
+import com.empowerly.model.Payroll;
+import com.empowerly.model.Payslip;
+import com.empowerly.repository.PayrollRepository;
+import com.empowerly.repository.PayslipRepository;
+import com.itextpdf.html2pdf.ConverterProperties;
+import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Renders payslip PDFs for an approved payroll on a bounded worker pool, so a
+ * large run never competes with request threads for more than its own workers.
+ * The HTML template is parsed once into literal and placeholder segments, and the
+ * font set is loaded once and shared by every worker; each PDF is written to the
+ * document store and its {@code pdfUrl} set as soon as it completes.
+ */
+@Service
+public class PayslipPdfService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayslipPdfService.class);
+
+    private static final String DOCUMENTS_DIR = "generated_documents";
+    private static final String PAYSLIPS_DIR = "payslips";
+    private static final int RENDER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int PROGRESS_INTERVAL = 100;
+
+    private static final String PAYSLIP_TEMPLATE = "<!DOCTYPE html>" +
+            "<html>" +
+            "<head>" +
+            "    <meta charset='UTF-8'>" +
+            "    <style>" +
+            "        body { font-family: Helvetica, sans-serif; font-size: 11px; color: #1f2937; margin: 32px; }" +
+            "        .header { border-bottom: 2px solid #4f46e5; padding-bottom: 12px; margin-bottom: 20px; }" +
+            "        .logo { height: 40px; }" +
+            "        h1 { font-size: 18px; color: #4f46e5; margin: 8px 0 0 0; }" +
+            "        table { width: 100%; border-collapse: collapse; margin-bottom: 16px; }" +
+            "        th, td { padding: 6px 8px; border: 1px solid #e5e7eb; text-align: left; }" +
+            "        th { background: #f3f4f6; }" +
+            "        .amount { text-align: right; }" +
+            "        .net { font-size: 14px; font-weight: bold; color: #4f46e5; }" +
+            "    </style>" +
+            "</head>" +
+            "<body>" +
+            "    <div class='header'>{{logo}}<h1>Payslip - {{period}}</h1></div>" +
+            "    <table>" +
+            "        <tr><th>Employee</th><td>{{employeeName}}</td><th>Employee ID</th><td>{{employeeId}}</td></tr>" +
+            "        <tr><th>Working Days</th><td>{{workingDays}}</td><th>Present Days</th><td>{{presentDays}}</td></tr>" +
+            "        <tr><th>Paid Leaves</th><td>{{paidLeaves}}</td><th>Unpaid Leaves</th><td>{{unpaidLeaves}}</td></tr>" +
+            "    </table>" +
+            "    <table>" +
+            "        <tr><th>Earnings</th><th class='amount'>Amount</th></tr>" +
+            "        <tr><td>Basic Salary</td><td class='amount'>{{basicSalary}}</td></tr>" +
+            "        {{allowances}}" +
+            "        <tr><th>Gross Salary</th><th class='amount'>{{grossSalary}}</th></tr>" +
+            "    </table>" +
+            "    <table>" +
+            "        <tr><th>Deductions</th><th class='amount'>Amount</th></tr>" +
+            "        {{deductions}}" +
+            "    </table>" +
+            "    <p class='net'>Net Salary: {{netSalary}}</p>" +
+            "</body>" +
+            "</html>";
+
+    private final PayslipRepository payslipRepository;
+    private final PayrollRepository payrollRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private final List<TemplateSegment> template = parseTemplate(PAYSLIP_TEMPLATE);
+    private final String logoHtml = loadLogoHtml();
+
+    // Parsing the shipped fonts is the expensive part of a conversion; do it once
+    private final FontSet fontSet;
+    private final String defaultFontFamily;
+
+    // Font providers cache per-document fonts, so each worker keeps its own over the shared set
+    private final ThreadLocal<ConverterProperties> converterProperties;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(RENDER_THREADS,
+            new CustomizableThreadFactory("payslip-render-"));
+
+    public PayslipPdfService(PayslipRepository payslipRepository, PayrollRepository payrollRepository,
+            MongoTemplate mongoTemplate) {
+        this.payslipRepository = payslipRepository;
+        this.payrollRepository = payrollRepository;
+        this.mongoTemplate = mongoTemplate;
+
+        DefaultFontProvider defaultFontProvider = new DefaultFontProvider();
+        this.fontSet = defaultFontProvider.getFontSet();
+        this.defaultFontFamily = defaultFontProvider.getDefaultFontFamily();
+        this.converterProperties = ThreadLocal.withInitial(() -> new ConverterProperties()
+                .setFontProvider(new FontProvider(fontSet, defaultFontFamily)));
+    }
+
+    /**
+     * Renders every payslip of the payroll that does not have a PDF yet. Safe to
+     * re-run after an interruption: finished payslips already carry a
+     * {@code pdfUrl} and are skipped.
+     */
+    public void renderPayslips(String payrollId, BiConsumer<Integer, Integer> progress) {
+        Payroll payroll = payrollRepository.findById(payrollId)
+                .orElseThrow(() -> new RuntimeException("Payroll not found"));
+
+        List<Payslip> payslips = mongoTemplate.find(Query.query(Criteria.where("month").is(payroll.getMonth())
+                .and("year").is(payroll.getYear())
+                .and("pdfUrl").is(null)), Payslip.class);
+        int total = payslips.size();
+        progress.accept(0, total);
+
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        for (Payslip payslip : payslips) {
+            completionService.submit(() -> {
+                render(payslip);
+                return null;
+            });
+        }
+
+        int failed = 0;
+        for (int done = 1; done <= total; done++) {
+            try {
+                completionService.take().get();
+            } catch (ExecutionException e) {
+                failed++;
+                logger.error("Failed to render payslip PDF", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Payslip rendering interrupted");
+            }
+            if (done % PROGRESS_INTERVAL == 0 || done == total) {
+                progress.accept(done, total);
+            }
+        }
+
+        if (failed > 0) {
+            throw new RuntimeException(failed + " of " + total + " payslip PDFs failed to render");
+        }
+    }
+
+    public byte[] getPayslipPdf(String employeeId, int month, int year) {
+        Payslip payslip = payslipRepository.findFirstByEmployeeIdAndMonthAndYearOrderByGeneratedAtDesc(
+                employeeId, month, year)
+                .orElseThrow(() -> new RuntimeException("Payslip not found"));
+        if (payslip.getPdfUrl() == null) {
+            throw new RuntimeException("Payslip PDF is not ready yet");
+        }
+        try {
+            return Files.readAllBytes(pdfPath(payslip));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read payslip PDF: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the rendered PDFs of a pay period from the document store.
+     */
+    public void deletePayslipPdfs(int month, int year) {
+        Path periodDir = periodDir(month, year);
+        if (!Files.isDirectory(periodDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(periodDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(periodDir);
+        } catch (Exception e) {
+            logger.warn("Failed to delete payslip PDFs in {}", periodDir, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void render(Payslip payslip) throws Exception {
+        Path path = pdfPath(payslip);
+        Files.createDirectories(path.getParent());
+
+        // Write to a temporary file first so a crash never leaves a truncated PDF behind
+        Path partial = path.resolveSibling(path.getFileName() + ".part");
+        ConverterProperties properties = converterProperties.get();
+        properties.getFontProvider().reset();
+        try (OutputStream out = Files.newOutputStream(partial)) {
+            HtmlConverter.convertToPdf(fillTemplate(payslip), out, properties);
+        }
+        Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING);
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(payslip.getId())),
+                new Update().set("pdfUrl", pdfUrl(payslip)), Payslip.class);
+    }
+
+    private String fillTemplate(Payslip payslip) {
+        StringBuilder html = new StringBuilder(PAYSLIP_TEMPLATE.length() + 1024);
+        for (TemplateSegment segment : template) {
+            if (segment.placeholder()) {
+                appendValue(html, segment.text(), payslip);
+            } else {
+                html.append(segment.text());
+            }
+        }
+        return html.toString();
+    }
+
+    private void appendValue(StringBuilder html, String key, Payslip payslip) {
+        switch (key) {
+            case "logo" -> html.append(logoHtml);
+            case "period" -> html.append(Month.of(payslip.getMonth()).getDisplayName(TextStyle.FULL, Locale.ENGLISH))
+                    .append(' ').append(payslip.getYear());
+            case "employeeName" -> appendEscaped(html, payslip.getEmployeeName());
+            case "employeeId" -> appendEscaped(html, payslip.getEmployeeId());
+            case "workingDays" -> html.append(payslip.getWorkingDays());
+            case "presentDays" -> html.append(payslip.getPresentDays());
+            case "paidLeaves" -> html.append(payslip.getPaidLeaves());
+            case "unpaidLeaves" -> html.append(payslip.getUnpaidLeaves());
+            case "basicSalary" -> html.append(formatAmount(payslip.getBasicSalary()));
+            case "grossSalary" -> html.append(formatAmount(payslip.getGrossSalary()));
+            case "netSalary" -> html.append(formatAmount(payslip.getNetSalary()));
+            case "allowances" -> appendRows(html, payslip.getAllowances());
+            case "deductions" -> appendRows(html, payslip.getDeductions());
+            default -> throw new IllegalStateException("Unknown payslip placeholder: " + key);
+        }
+    }
+
+    private void appendRows(StringBuilder html, Map<String, Double> components) {
+        if (components == null) {
+            return;
+        }
+        for (Map.Entry<String, Double> component : components.entrySet()) {
+            html.append("<tr><td>");
+            appendEscaped(html, component.getKey());
+            html.append("</td><td class='amount'>")
+                    .append(formatAmount(component.getValue() == null ? 0 : component.getValue()))
+                    .append("</td></tr>");
+        }
+    }
+
+    private static void appendEscaped(StringBuilder html, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                case '&' -> html.append("&amp;");
+                case '\'' -> html.append("&#39;");
+                case '"' -> html.append("&quot;");
+                default -> html.append(c);
+            }
+        }
+    }
+
+    private static String formatAmount(double amount) {
+        return String.format(Locale.ENGLISH, "%,.2f", amount);
+    }
+
+    private static Path pdfPath(Payslip payslip) {
+        return periodDir(payslip.getMonth(), payslip.getYear())
+                .resolve("Payslip_" + payslip.getEmployeeId() + ".pdf");
+    }
+
+    private static Path periodDir(int month, int year) {
+        return Paths.get(DOCUMENTS_DIR, PAYSLIPS_DIR, String.format("%d-%02d", year, month));
+    }
+
+    private static String pdfUrl(Payslip payslip) {
+        return "/api/payroll/payslips/" + payslip.getMonth() + "/" + payslip.getYear() + "/pdf";
+    }
+
+    private static List<TemplateSegment> parseTemplate(String source) {
+        List<TemplateSegment> segments = new ArrayList<>();
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                segments.add(new TemplateSegment(source.substring(position), false));
+                break;
+            }
+            int close = source.indexOf("}}", open);
+            segments.add(new TemplateSegment(source.substring(position, open), false));
+            segments.add(new TemplateSegment(source.substring(open + 2, close), true));
+            position = close + 2;
+        }
+        return segments;
+    }
+
+    private String loadLogoHtml() {
+        try (InputStream logoStream = getClass().getResourceAsStream("/static/images/empowerly-logo.png")) {
+            if (logoStream != null) {
+                return "<img src='data:image/png;base64," + Base64.getEncoder().encodeToString(logoStream.readAllBytes())
+                        + "' class='logo' alt='Empowerly Logo' />";
+            }
+        } catch (Exception e) {
+            // Logo loading failed, render without it
+        }
+        return "";
+    }
+
+    private record TemplateSegment(String text, boolean placeholder) {
+    }
+}
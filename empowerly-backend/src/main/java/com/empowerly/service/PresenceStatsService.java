@@ -0,0 +1,236 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.AdminStatsResponse;
+import com.empowerly.model.Attendance;
+import com.empowerly.model.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory counters behind the admin and HR dashboards: users per role and
+ * today's checked-in, checked-out, late and on-leave numbers. User and
+ * attendance writes on this node adjust them directly; one aggregation over
+ * users (with today's attendance unioned in) rebuilds them at startup, at day
+ * rollover and every few minutes to pick up writes made on other nodes.
+ * Changes are pushed to {@value #STATS_TOPIC} at most once a second; only HR
+ * and Admin STOMP sessions may subscribe to it (see StompAuthChannelInterceptor).
+ */
+@Service
+public class PresenceStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceStatsService.class);
+
+    public static final String STATS_TOPIC = "/topic/admin/stats";
+
+    private final MongoTemplate mongoTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final boolean pushEnabled;
+
+    private final Map<User.Role, AtomicLong> roleCounts = new EnumMap<>(User.Role.class);
+    private volatile DayCounters day = new DayCounters(null);
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    public PresenceStatsService(MongoTemplate mongoTemplate, SimpMessagingTemplate messagingTemplate,
+            @Value("${empowerly.stats.push-enabled:true}") boolean pushEnabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.pushEnabled = pushEnabled;
+        for (User.Role role : User.Role.values()) {
+            roleCounts.put(role, new AtomicLong());
+        }
+    }
+
+    public AdminStatsResponse snapshot() {
+        DayCounters today = currentDay();
+        long employees = roleCounts.get(User.Role.EMPLOYEE).get();
+        long hr = roleCounts.get(User.Role.HR).get();
+        long admins = roleCounts.get(User.Role.ADMIN).get();
+        return new AdminStatsResponse(employees + hr + admins, employees, hr, admins,
+                today.checkedIn.get(), today.checkedOut.get(), today.late.get(), today.onLeave.get());
+    }
+
+    // ==================== EVENTS ====================
+
+    public void userCreated(User.Role role) {
+        if (role != null) {
+            roleCounts.get(role).incrementAndGet();
+            changed.set(true);
+        }
+    }
+
+    public void userDeleted(User.Role role) {
+        if (role != null) {
+            roleCounts.get(role).decrementAndGet();
+            changed.set(true);
+        }
+    }
+
+    public void checkedIn(Attendance attendance) {
+        DayCounters today = dayOf(attendance.getDate());
+        if (today != null) {
+            today.checkedIn.incrementAndGet();
+            if (Boolean.TRUE.equals(attendance.getIsLate())) {
+                today.late.incrementAndGet();
+            }
+            changed.set(true);
+        }
+    }
+
+    public void checkedOut(Attendance attendance) {
+        DayCounters today = dayOf(attendance.getDate());
+        if (today != null) {
+            today.checkedIn.decrementAndGet();
+            today.checkedOut.incrementAndGet();
+            changed.set(true);
+        }
+    }
+
+    /**
+     * A leave day was written over {@code previous} (null if the day had no record).
+     */
+    public void leaveMarked(LocalDate date, Attendance previous) {
+        DayCounters today = dayOf(date);
+        if (today == null || (previous != null && "LEAVE".equals(previous.getStatus()))) {
+            return;
+        }
+        if (previous != null) {
+            if ("CHECKED_IN".equals(previous.getStatus())) {
+                today.checkedIn.decrementAndGet();
+            } else if ("CHECKED_OUT".equals(previous.getStatus())) {
+                today.checkedOut.decrementAndGet();
+            }
+            if (Boolean.TRUE.equals(previous.getIsLate())) {
+                today.late.decrementAndGet();
+            }
+        }
+        today.onLeave.incrementAndGet();
+        changed.set(true);
+    }
+
+    /**
+     * A leave day was removed again (the leave was cancelled).
+     */
+    public void leaveUnmarked(LocalDate date) {
+        DayCounters today = dayOf(date);
+        if (today != null) {
+            today.onLeave.decrementAndGet();
+            changed.set(true);
+        }
+    }
+
+    // ==================== REBUILD AND PUSH ====================
+
+    /**
+     * Recounts everything with one aggregation: users grouped by role, with
+     * today's attendance grouped by status unioned into the same result.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    public synchronized void resync() {
+        LocalDate date = LocalDate.now();
+        Aggregation aggregation = Aggregation.newAggregation(
+                context -> new Document("$group", new Document("_id", bucket("role", "$role"))
+                        .append("count", new Document("$sum", 1))),
+                context -> new Document("$unionWith", new Document("coll",
+                        mongoTemplate.getCollectionName(Attendance.class))
+                        .append("pipeline", List.of(
+                                new Document("$match", new Document("date",
+                                        mongoTemplate.getConverter().convertToMongoType(date))),
+                                new Document("$group", new Document("_id", bucket("status", "$status"))
+                                        .append("count", new Document("$sum", 1))
+                                        .append("late", new Document("$sum", new Document("$cond",
+                                                List.of(new Document("$eq", List.of("$isLate", true)), 1, 0)))))))));
+
+        Map<User.Role, Long> roles = new EnumMap<>(User.Role.class);
+        DayCounters counted = new DayCounters(date);
+        for (Document row : mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(User.class),
+                Document.class)) {
+            Document id = row.get("_id", Document.class);
+            Object key = id.get("key");
+            long count = ((Number) row.get("count")).longValue();
+            if ("role".equals(id.getString("kind"))) {
+                for (User.Role role : User.Role.values()) {
+                    if (role.name().equals(key)) {
+                        roles.put(role, count);
+                    }
+                }
+            } else {
+                if ("CHECKED_IN".equals(key)) {
+                    counted.checkedIn.set(count);
+                } else if ("CHECKED_OUT".equals(key)) {
+                    counted.checkedOut.set(count);
+                } else if ("LEAVE".equals(key)) {
+                    counted.onLeave.set(count);
+                }
+                counted.late.addAndGet(((Number) row.get("late")).longValue());
+            }
+        }
+
+        roleCounts.forEach((role, count) -> count.set(roles.getOrDefault(role, 0L)));
+        day = counted;
+        changed.set(true);
+        logger.debug("Presence counters resynced for {}", date);
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void publishChanges() {
+        if (pushEnabled && changed.getAndSet(false)) {
+            messagingTemplate.convertAndSend(STATS_TOPIC, snapshot());
+        }
+    }
+
+    private DayCounters currentDay() {
+        DayCounters current = day;
+        if (!LocalDate.now().equals(current.date)) {
+            try {
+                resync(); // first read after midnight starts the new day
+            } catch (RuntimeException e) {
+                // Counters are advisory; never fail the write that reported the event
+                logger.warn("Could not resync presence counters: {}", e.getMessage());
+            }
+            current = day;
+        }
+        return current;
+    }
+
+    /**
+     * Today's counters if {@code date} is today, otherwise null (older records
+     * do not affect today's figures).
+     */
+    private DayCounters dayOf(LocalDate date) {
+        DayCounters current = currentDay();
+        return date != null && date.equals(current.date) ? current : null;
+    }
+
+    private static Document bucket(String kind, String keyField) {
+        return new Document("kind", kind).append("key", keyField);
+    }
+
+    private static class DayCounters {
+        final LocalDate date;
+        final AtomicLong checkedIn = new AtomicLong();
+        final AtomicLong checkedOut = new AtomicLong();
+        final AtomicLong late = new AtomicLong();
+        final AtomicLong onLeave = new AtomicLong();
+
+        DayCounters(LocalDate date) {
+            this.date = date;
+        }
+    }
+}
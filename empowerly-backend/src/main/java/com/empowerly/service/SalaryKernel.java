@@ -0,0 +1,128 @@
+package com.empowerly.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Salary arithmetic in exact minor units (paise). Components live at fixed slots
+ * of caller-owned {@code long[]} buffers, so a calculation allocates nothing;
+ * the named allowance and deduction maps are built only when an entry is stored
+ * or returned. Percentages are carried as basis points and every computed
+ * deduction is rounded half-up to the paisa once, so org-wide totals are plain
+ * integer sums with no floating-point drift.
+ */
+public final class SalaryKernel {
+
+    // Allowance slots
+    public static final int HRA = 0;
+    public static final int DA = 1;
+    public static final int TRAVEL = 2;
+    public static final int MEDICAL = 3;
+    public static final int OTHER = 4;
+    public static final int ALLOWANCE_SLOTS = 5;
+
+    // Deduction slots
+    public static final int TAX = 0;
+    public static final int PF = 1;
+    public static final int UNPAID_LEAVE = 2;
+    public static final int PENALTIES = 3;
+    public static final int DEDUCTION_SLOTS = 4;
+
+    private static final String[] ALLOWANCE_NAMES = { "HRA", "DA", "Travel", "Medical", "Other" };
+    private static final String[] DEDUCTION_NAMES = { "Tax", "PF", "UnpaidLeave", "Penalties" };
+
+    private static final long MINOR_PER_MAJOR = 100;
+    private static final long BASIS_POINTS_PER_UNIT = 10_000;
+
+    private SalaryKernel() {
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * MINOR_PER_MAJOR);
+    }
+
+    public static double toMajor(long minor) {
+        return minor / (double) MINOR_PER_MAJOR;
+    }
+
+    /**
+     * Converts a percentage such as {@code 12.5} to basis points ({@code 1250}).
+     */
+    public static long toBasisPoints(double percentage) {
+        return Math.round(percentage * 100);
+    }
+
+    /**
+     * Slot of a named allowance ("HRA", "DA", ...), or -1 if there is none.
+     */
+    public static int allowanceSlot(String name) {
+        for (int slot = 0; slot < ALLOWANCE_SLOTS; slot++) {
+            if (ALLOWANCE_NAMES[slot].equalsIgnoreCase(name)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public static long sum(long[] components) {
+        long total = 0;
+        for (long component : components) {
+            total += component;
+        }
+        return total;
+    }
+
+    /**
+     * Fills {@code deductions} and returns the net salary, all in minor units.
+     * Tax applies to gross, PF to basic, and unpaid leave is basic pro-rated by
+     * working days.
+     */
+    public static long calculate(long basic, long gross, long taxBasisPoints, long pfBasisPoints,
+            int workingDays, int unpaidLeaves, long penalties, long[] deductions) {
+        deductions[TAX] = applyRate(gross, taxBasisPoints);
+        deductions[PF] = applyRate(basic, pfBasisPoints);
+        deductions[UNPAID_LEAVE] = unpaidLeaves > 0 && workingDays > 0
+                ? divideHalfUp(basic * unpaidLeaves, workingDays)
+                : 0;
+        deductions[PENALTIES] = Math.max(penalties, 0);
+        return gross - sum(deductions);
+    }
+
+    public static long applyRate(long amount, long basisPoints) {
+        return divideHalfUp(amount * basisPoints, BASIS_POINTS_PER_UNIT);
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = Math.floorDiv(dividend, divisor);
+        return Math.floorMod(dividend, divisor) * 2 >= divisor ? quotient + 1 : quotient;
+    }
+
+    // ==================== API EDGE ====================
+
+    /**
+     * Named allowance map as stored on entries; "Other" only when non-zero.
+     */
+    public static Map<String, Double> allowanceMap(long[] allowances) {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (int slot = 0; slot < ALLOWANCE_SLOTS; slot++) {
+            if (slot != OTHER || allowances[slot] > 0) {
+                map.put(ALLOWANCE_NAMES[slot], toMajor(allowances[slot]));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Named deduction map as stored on entries; unpaid leave and penalties only
+     * when they apply.
+     */
+    public static Map<String, Double> deductionMap(long[] deductions) {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (int slot = 0; slot < DEDUCTION_SLOTS; slot++) {
+            if (slot == TAX || slot == PF || deductions[slot] > 0) {
+                map.put(DEDUCTION_NAMES[slot], toMajor(deductions[slot]));
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,141 @@
+package com.empowerly.service;
+
+import com.empowerly.model.SalaryStructure;
+import com.empowerly.repository.SalaryStructureRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory effective-dated index of salary structures: per employee, an array
+ * sorted by {@code effectiveFrom} that is binary-searched by date. The whole
+ * collection is loaded with one query; saves on this node refresh the affected
+ * employee, and the index is reloaded periodically to pick up writes made on
+ * other nodes. Structures never overlap (enforced on save), so a lookup has at
+ * most one answer.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalaryStructureIndex {
+
+    private static final Duration RELOAD_AFTER = Duration.ofMinutes(5);
+    private static final Comparator<SalaryStructure> BY_EFFECTIVE_FROM = Comparator
+            .comparing(SalaryStructure::getEffectiveFrom);
+
+    private final SalaryStructureRepository salaryStructureRepository;
+
+    private volatile Snapshot snapshot;
+
+    public Optional<SalaryStructure> findActive(String employeeId, LocalDate date) {
+        return Optional.ofNullable(activeOn(current().byEmployee.get(employeeId), date));
+    }
+
+    /**
+     * The structure in force on {@code date} for every employee that has one.
+     */
+    public Map<String, SalaryStructure> findAllActive(LocalDate date) {
+        Map<String, SalaryStructure> active = new HashMap<>();
+        current().byEmployee.forEach((employeeId, structures) -> {
+            SalaryStructure structure = activeOn(structures, date);
+            if (structure != null) {
+                active.put(employeeId, structure);
+            }
+        });
+        return active;
+    }
+
+    /**
+     * Re-reads one employee's structures after a write on this node.
+     */
+    public void refresh(String employeeId) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return; // the next lookup loads everything anyway
+        }
+        SalaryStructure[] structures = sorted(salaryStructureRepository.findByEmployeeId(employeeId));
+        if (structures.length == 0) {
+            current.byEmployee.remove(employeeId);
+        } else {
+            current.byEmployee.put(employeeId, structures);
+        }
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || current.loadedAt.isBefore(LocalDateTime.now().minus(RELOAD_AFTER))) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.loadedAt.isBefore(LocalDateTime.now().minus(RELOAD_AFTER))) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        Map<String, List<SalaryStructure>> grouped = new HashMap<>();
+        for (SalaryStructure structure : salaryStructureRepository.findAll()) {
+            if (structure.getEmployeeId() != null && structure.getEffectiveFrom() != null) {
+                grouped.computeIfAbsent(structure.getEmployeeId(), id -> new ArrayList<>()).add(structure);
+            }
+        }
+        Snapshot loaded = new Snapshot();
+        grouped.forEach((employeeId, structures) -> loaded.byEmployee.put(employeeId, sorted(structures)));
+        return loaded;
+    }
+
+    private static SalaryStructure[] sorted(List<SalaryStructure> structures) {
+        return structures.stream()
+                .filter(structure -> structure.getEffectiveFrom() != null)
+                .sorted(BY_EFFECTIVE_FROM)
+                .toArray(SalaryStructure[]::new);
+    }
+
+    /**
+     * Binary search for the last structure starting on or before {@code date},
+     * which is active if it has not ended yet.
+     */
+    private static SalaryStructure activeOn(SalaryStructure[] structures, LocalDate date) {
+        if (structures == null) {
+            return null;
+        }
+        int low = 0;
+        int high = structures.length - 1;
+        int match = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (!structures[mid].getEffectiveFrom().isAfter(date)) {
+                match = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (match < 0) {
+            return null;
+        }
+        SalaryStructure candidate = structures[match];
+        return candidate.getEffectiveTo() == null || !candidate.getEffectiveTo().isBefore(date) ? candidate : null;
+    }
+
+    private static class Snapshot {
+        final LocalDateTime loadedAt = LocalDateTime.now();
+        final Map<String, SalaryStructure[]> byEmployee = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,84 @@
+package com.empowerly.service;
+
+import com.empowerly.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached display fields (name, email, department) of users, used to
+ * denormalize them onto attendance and leave records without a user lookup per
+ * write, and to resolve many ids with one query when listing.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDirectory {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Cache<String, UserSummary> summaries = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+
+    public UserSummary get(String userId) {
+        UserSummary summary = getAll(List.of(userId)).get(userId);
+        if (summary == null) {
+            throw new RuntimeException("User not found");
+        }
+        return summary;
+    }
+
+    /**
+     * Summaries for the given ids; missing users are absent from the result.
+     * Everything not cached is fetched with a single {@code $in} query.
+     */
+    public Map<String, UserSummary> getAll(Collection<String> userIds) {
+        Map<String, UserSummary> found = new HashMap<>(summaries.getAllPresent(userIds));
+        List<String> missing = new ArrayList<>();
+        for (String userId : userIds) {
+            if (userId != null && !found.containsKey(userId)) {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Query query = Query.query(Criteria.where("_id").in(missing));
+            query.fields().include("name", "email", "department");
+            for (User user : mongoTemplate.find(query, User.class)) {
+                UserSummary summary = new UserSummary(user.getId(), user.getName(), user.getEmail(),
+                        user.getDepartment());
+                summaries.put(user.getId(), summary);
+                found.put(user.getId(), summary);
+            }
+        }
+        return found;
+    }
+
+    public void evict(String userId) {
+        summaries.invalidate(userId);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserSummary {
+        private String id;
+        private String name;
+        private String email;
+        private User.Department department;
+    }
+}
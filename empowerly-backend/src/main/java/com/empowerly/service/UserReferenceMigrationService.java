@@ -0,0 +1,205 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.UserReferenceMigrationStatus;
+import com.mongodb.DBRef;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rewrites attendance, leave and leave-balance documents that still carry a
+ * {@code @DBRef} to a user into the plain id plus denormalized display fields,
+ * while the application keeps serving traffic. Documents are read in batches of
+ * those that still have the reference, users for a batch are resolved with one
+ * query, and the batch is written back with one unordered bulk update that also
+ * drops the reference, so the migration is idempotent and resumes where it
+ * stopped. Records that collide on a unique index (a second attendance record
+ * for the same user and day) are moved to a {@code <collection>_duplicates}
+ * collection rather than lost.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserReferenceMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserReferenceMigrationService.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final String DUPLICATES_SUFFIX = "_duplicates";
+
+    private static final List<ReferenceMapping> MAPPINGS = List.of(
+            new ReferenceMapping("attendance", "user", "userId", "userName", "userEmail", "department"),
+            new ReferenceMapping("leaves", "employee", "employeeId", "employeeName", "employeeEmail", "department"),
+            new ReferenceMapping("leaves", "approvedBy", "approvedById", "approvedByName", null, null),
+            new ReferenceMapping("leave_balances", "user", "userId", null, null, null));
+
+    private final MongoTemplate mongoTemplate;
+    private final UserDirectory userDirectory;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("user-ref-migration-"));
+
+    private UserReferenceMigrationStatus status = new UserReferenceMigrationStatus();
+
+    /**
+     * Starts the migration in the background; a call while it is running just
+     * returns the current progress.
+     */
+    public synchronized UserReferenceMigrationStatus start() {
+        if (!status.isRunning()) {
+            status = new UserReferenceMigrationStatus();
+            status.setRunning(true);
+            status.setStartedAt(LocalDateTime.now());
+            executor.execute(this::run);
+        }
+        return getStatus();
+    }
+
+    public synchronized UserReferenceMigrationStatus getStatus() {
+        return new UserReferenceMigrationStatus(status.isRunning(), new LinkedHashMap<>(status.getMigrated()),
+                status.getMissingUsers(), status.getDuplicatesArchived(), status.getError(),
+                status.getStartedAt(), status.getCompletedAt());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            for (ReferenceMapping mapping : MAPPINGS) {
+                migrate(mapping);
+            }
+            logger.info("User reference migration completed: {}", getStatus());
+        } catch (Exception e) {
+            logger.error("User reference migration failed", e);
+            synchronized (this) {
+                status.setError(e.getMessage());
+            }
+        } finally {
+            synchronized (this) {
+                status.setRunning(false);
+                status.setCompletedAt(LocalDateTime.now());
+            }
+        }
+    }
+
+    private void migrate(ReferenceMapping mapping) {
+        // Every document of a batch loses the reference (or is archived), so the
+        // same query yields the next batch until nothing is left
+        Query pending = Query.query(Criteria.where(mapping.refField()).exists(true)).limit(BATCH_SIZE);
+        List<Document> batch;
+        while (!Thread.currentThread().isInterrupted()
+                && !(batch = mongoTemplate.find(pending, Document.class, mapping.collection())).isEmpty()) {
+            migrateBatch(mapping, batch);
+        }
+    }
+
+    private void migrateBatch(ReferenceMapping mapping, List<Document> batch) {
+        List<String> userIds = batch.stream()
+                .map(document -> referencedId(document.get(mapping.refField())))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<String, UserDirectory.UserSummary> users = userDirectory.getAll(userIds);
+
+        long missingUsers = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, mapping.collection());
+        for (Document document : batch) {
+            String userId = referencedId(document.get(mapping.refField()));
+            Update update = new Update().unset(mapping.refField());
+            if (userId != null) {
+                update.set(mapping.idField(), userId);
+                UserDirectory.UserSummary user = users.get(userId);
+                if (user == null) {
+                    missingUsers++;
+                } else {
+                    setIfMapped(update, mapping.nameField(), user.getName());
+                    setIfMapped(update, mapping.emailField(), user.getEmail());
+                    setIfMapped(update, mapping.departmentField(),
+                            user.getDepartment() != null ? user.getDepartment().name() : null);
+                }
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))), update);
+        }
+
+        List<Document> duplicates = new ArrayList<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                duplicates.add(batch.get(error.getIndex()));
+            }
+        }
+        if (!duplicates.isEmpty()) {
+            archive(mapping.collection(), duplicates);
+        }
+
+        synchronized (this) {
+            status.getMigrated().merge(mapping.collection() + "." + mapping.refField(),
+                    (long) (batch.size() - duplicates.size()), Long::sum);
+            status.setMissingUsers(status.getMissingUsers() + missingUsers);
+            status.setDuplicatesArchived(status.getDuplicatesArchived() + duplicates.size());
+        }
+    }
+
+    private void archive(String collection, List<Document> duplicates) {
+        // save() upserts by _id, so an archive interrupted halfway can be repeated
+        for (Document duplicate : duplicates) {
+            mongoTemplate.save(duplicate, collection + DUPLICATES_SUFFIX);
+        }
+        List<Object> ids = duplicates.stream().map(duplicate -> duplicate.get("_id")).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), collection);
+        logger.warn("Archived {} duplicate {} records to {}{}", duplicates.size(), collection, collection,
+                DUPLICATES_SUFFIX);
+    }
+
+    private static void setIfMapped(Update update, String field, Object value) {
+        if (field != null) {
+            update.set(field, value);
+        }
+    }
+
+    /**
+     * The referenced id as a string, whether the driver decoded the reference
+     * as a {@link DBRef} or as a plain {@code {$ref, $id}} document.
+     */
+    private static String referencedId(Object reference) {
+        Object id = reference instanceof DBRef dbRef ? dbRef.getId()
+                : reference instanceof Document document ? document.get("$id")
+                : null;
+        if (id instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        return id != null ? id.toString() : null;
+    }
+
+    private record ReferenceMapping(String collection, String refField, String idField, String nameField,
+            String emailField, String departmentField) {
+    }
+}
@@ -27,6 +27,12 @@ public class UserService {
     private final OTPRepository otpRepository;
     private final OfferLetterRepository offerLetterRepository;
     private final AppointmentLetterRepository appointmentLetterRepository;
+    private final MeetingLinkCache meetingLinkCache;
+    private final SalaryStructureIndex salaryStructureIndex;
+    private final UserDirectory userDirectory;
+    private final AttendanceSummaryService attendanceSummaryService;
+    private final PresenceStatsService presenceStatsService;
+    private final AttendanceBitmapService attendanceBitmapService;
 
     @Transactional
     public void deleteUserAndAllData(String userId) {
@@ -41,7 +47,10 @@ public class UserService {
 
         // Delete meetings hosted by this user
         meetingRepository.findByHostId(userId)
-                .forEach(meetingRepository::delete);
+                .forEach(meeting -> {
+                    meetingRepository.delete(meeting);
+                    meetingLinkCache.evict(meeting);
+                });
 
         // ==================== CHAT DATA ====================
         // Find and delete all conversations involving this user
@@ -55,16 +64,17 @@ public class UserService {
 
         // ==================== LEAVE DATA ====================
         // Delete leave balance for all years
-        leaveBalanceRepository.findAll().stream()
-                .filter(lb -> lb.getUser().getId().equals(userId))
+        leaveBalanceRepository.findByUserId(userId)
                 .forEach(leaveBalanceRepository::delete);
 
-        // Delete all leave requests (Leave uses 'employee' field)
-        leaveRepository.findByEmployee(user).forEach(leaveRepository::delete);
+        // Delete all leave requests (uses employeeId string)
+        leaveRepository.findByEmployeeId(userId).forEach(leaveRepository::delete);
 
         // ==================== ATTENDANCE DATA ====================
-        // Delete all attendance records (Attendance uses 'user' field)
-        attendanceRepository.findByUser(user).forEach(attendanceRepository::delete);
+        // Delete all attendance records (uses userId string)
+        attendanceRepository.findByUserId(userId).forEach(attendanceRepository::delete);
+        attendanceSummaryService.deleteForUser(userId);
+        attendanceBitmapService.deleteForUser(userId);
 
         // ==================== PAYROLL DATA ====================
         // Delete all payroll entries (uses employeeId string)
@@ -78,6 +88,7 @@ public class UserService {
         // Delete salary structures (uses employeeId string)
         salaryStructureRepository.findByEmployeeId(userId)
                 .forEach(salaryStructureRepository::delete);
+        salaryStructureIndex.refresh(userId);
 
         // ==================== PERFORMANCE REVIEW DATA ====================
         // Delete all performance reviews (uses employeeId string)
@@ -102,5 +113,7 @@ public class UserService {
         // ==================== FINALLY DELETE USER ====================
         // Delete the user record itself
         userRepository.delete(user);
+        userDirectory.evict(userId);
+        presenceStatsService.userDeleted(user.getRole());
     }
 }
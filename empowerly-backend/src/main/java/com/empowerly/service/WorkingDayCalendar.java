@@ -0,0 +1,52 @@
+package com.empowerly.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Which days are working days: every day except the configured weekend days
+ * ({@code empowerly.calendar.weekend}, Saturday and Sunday by default) and
+ * public holidays ({@code empowerly.calendar.holidays}, comma-separated ISO dates).
+ */
+@Component
+public class WorkingDayCalendar {
+
+    private final Set<DayOfWeek> weekend;
+    private final Set<LocalDate> holidays = new HashSet<>();
+
+    public WorkingDayCalendar(
+            @Value("${empowerly.calendar.weekend:SATURDAY,SUNDAY}") List<DayOfWeek> weekend,
+            @Value("${empowerly.calendar.holidays:}") List<String> holidays) {
+        this.weekend = weekend.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(weekend);
+        for (String holiday : holidays) {
+            if (!holiday.isBlank()) {
+                this.holidays.add(LocalDate.parse(holiday.trim()));
+            }
+        }
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        return !weekend.contains(date.getDayOfWeek()) && !holidays.contains(date);
+    }
+
+    /**
+     * Working days from {@code start} to {@code end}, both inclusive, in order.
+     */
+    public List<LocalDate> workingDays(LocalDate start, LocalDate end) {
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (isWorkingDay(date)) {
+                days.add(date);
+            }
+        }
+        return days;
+    }
+}
@@ -0,0 +1,24 @@
+package com.empowerly.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks under src/test. Skipped in the normal build; pass a
+ * benchmark name pattern to run them, e.g.
+ * {@code mvn test -Dtest=BenchmarkLauncherTest -Djmh.include=SalaryKernelBenchmark}.
+ */
+@EnabledIfSystemProperty(named = "jmh.include", matches = ".+")
+class BenchmarkLauncherTest {
+
+    @Test
+    void runBenchmarks() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(System.getProperty("jmh.include"))
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,127 @@
+package com.empowerly.benchmark;
+
+import com.empowerly.service.SalaryKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-entry salary calculation: the paise kernel on its fixed slots, the kernel
+ * plus the named maps stored on an entry, and the double/HashMap path it
+ * replaced. Each invocation calculates {@link #ENTRIES} entries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SalaryKernelBenchmark {
+
+    private static final int ENTRIES = 1024;
+
+    private final long[] basic = new long[ENTRIES];
+    private final long[][] allowances = new long[ENTRIES][SalaryKernel.ALLOWANCE_SLOTS];
+    private final long[] taxBasisPoints = new long[ENTRIES];
+    private final long[] pfBasisPoints = new long[ENTRIES];
+    private final int[] workingDays = new int[ENTRIES];
+    private final int[] unpaidLeaves = new int[ENTRIES];
+    private final long[] penalties = new long[ENTRIES];
+
+    private final long[] deductions = new long[SalaryKernel.DEDUCTION_SLOTS];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < ENTRIES; i++) {
+            basic[i] = 1_500_000 + random.nextInt(10_000_000);
+            for (int slot = 0; slot < SalaryKernel.OTHER; slot++) {
+                allowances[i][slot] = random.nextInt(2_000_000);
+            }
+            allowances[i][SalaryKernel.OTHER] = random.nextBoolean() ? random.nextInt(500_000) : 0;
+            taxBasisPoints[i] = random.nextInt(3_001);
+            pfBasisPoints[i] = 1_200;
+            workingDays[i] = 20 + random.nextInt(4);
+            unpaidLeaves[i] = random.nextInt(4) == 0 ? 1 + random.nextInt(3) : 0;
+            penalties[i] = random.nextInt(8) == 0 ? random.nextInt(200_000) : 0;
+        }
+    }
+
+    @Benchmark
+    public long kernel() {
+        long total = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            long gross = basic[i] + SalaryKernel.sum(allowances[i]);
+            total += SalaryKernel.calculate(basic[i], gross, taxBasisPoints[i], pfBasisPoints[i],
+                    workingDays[i], unpaidLeaves[i], penalties[i], deductions);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long kernelWithEntryMaps(Blackhole blackhole) {
+        long total = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            long gross = basic[i] + SalaryKernel.sum(allowances[i]);
+            total += SalaryKernel.calculate(basic[i], gross, taxBasisPoints[i], pfBasisPoints[i],
+                    workingDays[i], unpaidLeaves[i], penalties[i], deductions);
+            blackhole.consume(SalaryKernel.allowanceMap(allowances[i]));
+            blackhole.consume(SalaryKernel.deductionMap(deductions));
+        }
+        return total;
+    }
+
+    /**
+     * The pre-kernel calculation: rupee doubles, allowances and deductions in
+     * HashMaps, gross and net summed from the map values.
+     */
+    @Benchmark
+    public double doublePath(Blackhole blackhole) {
+        double total = 0;
+        for (int i = 0; i < ENTRIES; i++) {
+            double basicSalary = SalaryKernel.toMajor(basic[i]);
+            Map<String, Double> allowanceMap = new HashMap<>();
+            allowanceMap.put("HRA", SalaryKernel.toMajor(allowances[i][SalaryKernel.HRA]));
+            allowanceMap.put("DA", SalaryKernel.toMajor(allowances[i][SalaryKernel.DA]));
+            allowanceMap.put("Travel", SalaryKernel.toMajor(allowances[i][SalaryKernel.TRAVEL]));
+            allowanceMap.put("Medical", SalaryKernel.toMajor(allowances[i][SalaryKernel.MEDICAL]));
+            if (allowances[i][SalaryKernel.OTHER] > 0) {
+                allowanceMap.put("Other", SalaryKernel.toMajor(allowances[i][SalaryKernel.OTHER]));
+            }
+
+            double grossSalary = basicSalary;
+            for (Double allowance : allowanceMap.values()) {
+                grossSalary += allowance;
+            }
+
+            Map<String, Double> deductionMap = new HashMap<>();
+            deductionMap.put("Tax", grossSalary * (taxBasisPoints[i] / 100.0 / 100));
+            deductionMap.put("PF", basicSalary * (pfBasisPoints[i] / 100.0 / 100));
+            if (unpaidLeaves[i] > 0) {
+                deductionMap.put("UnpaidLeave", (basicSalary / workingDays[i]) * unpaidLeaves[i]);
+            }
+            if (penalties[i] > 0) {
+                deductionMap.put("Penalties", SalaryKernel.toMajor(penalties[i]));
+            }
+
+            double totalDeductions = deductionMap.values().stream().mapToDouble(Double::doubleValue).sum();
+            total += grossSalary - totalDeductions;
+            blackhole.consume(allowanceMap);
+            blackhole.consume(deductionMap);
+        }
+        return total;
+    }
+}
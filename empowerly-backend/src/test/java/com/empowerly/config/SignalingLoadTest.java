@@ -0,0 +1,257 @@
+package com.empowerly.config;
+
+import com.empowerly.controller.WebRTCSignalingController.SignalMessage;
+import com.empowerly.service.PayrollJobService;
+import com.empowerly.service.PresenceStatsService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load generator for meeting signaling. Boots the application on a random
+ * port with the {@code loadtest} profile, connects N simulated STOMP clients
+ * spread across M meetings, replays join/offer/answer/ICE traffic through
+ * {@link com.empowerly.controller.WebRTCSignalingController} and logs delivery
+ * latency percentiles, frames per second and heap usage.
+ *
+ * Skipped in the normal build. Needs no outside infrastructure: signaling never
+ * touches MongoDB, and the two beans that read it when the application starts
+ * (presence counter resync, payroll job recovery) are mocked. The Mongo client
+ * is still created but never connects. Run with:
+ * {@code mvn test -Dtest=SignalingLoadTest -Dsignaling.loadtest=true}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+@EnabledIfSystemProperty(named = "signaling.loadtest", matches = "true")
+class SignalingLoadTest {
+
+    @MockBean
+    private PresenceStatsService presenceStatsService;
+
+    @MockBean
+    private PayrollJobService payrollJobService;
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalingLoadTest.class);
+
+    private static final String[] SIGNAL_TYPES = { "offer", "answer", "ice-candidate" };
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${signaling.loadtest.clients:200}")
+    private int clientCount;
+
+    @Value("${signaling.loadtest.meetings:20}")
+    private int meetingCount;
+
+    @Value("${signaling.loadtest.rounds:20}")
+    private int rounds;
+
+    @Value("${signaling.loadtest.ice-candidates-per-round:5}")
+    private int iceCandidatesPerRound;
+
+    @Value("${signaling.loadtest.sender-threads:8}")
+    private int senderThreads;
+
+    @Value("${signaling.loadtest.timeout-seconds:120}")
+    private int timeoutSeconds;
+
+    @Test
+    void deliversSignalingTrafficToEveryParticipant() throws Exception {
+        String url = "ws://localhost:" + port + "/ws";
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        // Every frame sent into a meeting is delivered to every client subscribed to it
+        int[] participantsPerMeeting = new int[meetingCount];
+        for (int i = 0; i < clientCount; i++) {
+            participantsPerMeeting[i % meetingCount]++;
+        }
+        int framesPerClient = 1 + rounds * (2 + iceCandidatesPerRound);
+        long expectedDeliveries = 0;
+        for (int participants : participantsPerMeeting) {
+            expectedDeliveries += (long) participants * participants * framesPerClient;
+        }
+
+        LatencyRecorder recorder = new LatencyRecorder((int) Math.min(expectedDeliveries, 5_000_000));
+        List<StompSession> sessions = new ArrayList<>(clientCount);
+        ExecutorService senders = Executors.newFixedThreadPool(senderThreads);
+
+        try {
+            logger.info("Signaling load test: {} clients across {} meetings, {} frames per client, {} expected deliveries",
+                    clientCount, meetingCount, framesPerClient, expectedDeliveries);
+
+            for (int i = 0; i < clientCount; i++) {
+                String meetingId = "loadtest-" + (i % meetingCount);
+                StompSession session = stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+                }).get(30, TimeUnit.SECONDS);
+                session.subscribe("/topic/meeting/" + meetingId, new DeliveryHandler(recorder));
+                sessions.add(session);
+            }
+            // Give the broker a moment to register the last subscriptions
+            Thread.sleep(500);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < sessions.size(); i++) {
+                StompSession session = sessions.get(i);
+                String clientId = "client-" + i;
+                String meetingId = "loadtest-" + (i % meetingCount);
+                senders.submit(() -> replaySignaling(session, clientId, meetingId));
+            }
+
+            long peakHeap = heapBefore;
+            long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (recorder.delivered() < expectedDeliveries && System.nanoTime() < deadline) {
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+                Thread.sleep(50);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            report(recorder, expectedDeliveries, elapsedNanos, heapBefore, peakHeap,
+                    memory.getHeapMemoryUsage().getUsed());
+            assertEquals(expectedDeliveries, recorder.delivered(), "frames delivered within " + timeoutSeconds + " s");
+        } finally {
+            senders.shutdownNow();
+            sessions.forEach(session -> {
+                if (session.isConnected()) {
+                    session.disconnect();
+                }
+            });
+            stompClient.stop();
+        }
+    }
+
+    private void replaySignaling(StompSession session, String clientId, String meetingId) {
+        String prefix = "/app/meeting/" + meetingId + "/";
+        session.send(prefix + "join", signal("join", clientId));
+        for (int round = 0; round < rounds; round++) {
+            session.send(prefix + SIGNAL_TYPES[0], signal(SIGNAL_TYPES[0], clientId));
+            session.send(prefix + SIGNAL_TYPES[1], signal(SIGNAL_TYPES[1], clientId));
+            for (int c = 0; c < iceCandidatesPerRound; c++) {
+                session.send(prefix + SIGNAL_TYPES[2], signal(SIGNAL_TYPES[2], clientId));
+            }
+        }
+    }
+
+    private SignalMessage signal(String type, String clientId) {
+        // Clients share this JVM, so a nanoTime stamp gives exact delivery latency
+        return new SignalMessage(type, clientId, null, Map.of("sentAt", System.nanoTime()));
+    }
+
+    private void report(LatencyRecorder recorder, long expected, long elapsedNanos,
+            long heapBefore, long peakHeap, long heapAfter) {
+        long[] latencies = recorder.sorted();
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        logger.info("Signaling load test complete: delivered {}/{} frames in {} s ({} frames/s)",
+                recorder.delivered(), expected, String.format("%.2f", seconds),
+                String.format("%.0f", recorder.delivered() / seconds));
+        logger.info("Delivery latency ms: p50={} p90={} p99={} p99.9={} max={}",
+                millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.90)),
+                millis(percentile(latencies, 0.99)), millis(percentile(latencies, 0.999)),
+                millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+        logger.info("Heap MB: before={} peak={} after={}",
+                heapBefore / (1024 * 1024), peakHeap / (1024 * 1024), heapAfter / (1024 * 1024));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+
+    private static class DeliveryHandler implements StompFrameHandler {
+
+        private final LatencyRecorder recorder;
+
+        DeliveryHandler(LatencyRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return SignalMessage.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long receivedAt = System.nanoTime();
+            if (payload instanceof SignalMessage message && message.getData() instanceof Map<?, ?> data
+                    && data.get("sentAt") instanceof Number sentAt) {
+                recorder.record(receivedAt - sentAt.longValue());
+            }
+        }
+    }
+
+    /**
+     * Fixed-capacity latency sample store; recording is a single atomic increment
+     * so it does not distort the latencies being measured.
+     */
+    private static class LatencyRecorder {
+
+        private final long[] samples;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicLong delivered = new AtomicLong();
+
+        LatencyRecorder(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        void record(long latencyNanos) {
+            delivered.incrementAndGet();
+            int index = next.getAndIncrement();
+            if (index < samples.length) {
+                samples[index] = latencyNanos;
+            }
+        }
+
+        long delivered() {
+            return delivered.get();
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, Math.min(next.get(), samples.length));
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
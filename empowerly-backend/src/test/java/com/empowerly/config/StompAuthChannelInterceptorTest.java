@@ -0,0 +1,108 @@
+package com.empowerly.config;
+
+import com.empowerly.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Principal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StompAuthChannelInterceptorTest {
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private JwtUtil jwtUtil;
+    private UserRepository userRepository;
+    private StompAuthChannelInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = mock(JwtUtil.class);
+        userRepository = mock(UserRepository.class);
+        interceptor = new StompAuthChannelInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(interceptor, "userRepository", userRepository);
+    }
+
+    @Test
+    void connectWithValidTokenSetsTheSessionUser() {
+        when(jwtUtil.validateToken("token")).thenReturn(true);
+        when(jwtUtil.getUserIdFromToken("token")).thenReturn("hr-1");
+        when(jwtUtil.getRoleFromToken("token")).thenReturn("HR");
+        when(userRepository.existsById("hr-1")).thenReturn(true);
+
+        StompHeaderAccessor accessor = accessor(StompCommand.CONNECT, null, null);
+        accessor.addNativeHeader("Authorization", "Bearer token");
+        Message<?> message = interceptor.preSend(message(accessor), channel);
+
+        Principal user = StompHeaderAccessor.wrap(message).getUser();
+        assertEquals("hr-1", user.getName());
+        assertTrue(((Authentication) user).getAuthorities().contains(new SimpleGrantedAuthority("ROLE_HR")));
+    }
+
+    @Test
+    void connectWithoutAValidTokenStaysAnonymous() {
+        when(jwtUtil.validateToken("bad")).thenReturn(false);
+
+        StompHeaderAccessor accessor = accessor(StompCommand.CONNECT, null, null);
+        accessor.addNativeHeader("Authorization", "Bearer bad");
+        Message<?> message = interceptor.preSend(message(accessor), channel);
+
+        assertNull(StompHeaderAccessor.wrap(message).getUser());
+    }
+
+    @Test
+    void onlyHrAndAdminMaySubscribeToProtectedTopics() {
+        for (String destination : List.of("/topic/admin/stats", "/topic/payroll/jobs/job-1")) {
+            assertThrows(AccessDeniedException.class,
+                    () -> interceptor.preSend(message(accessor(StompCommand.SUBSCRIBE, destination, null)), channel));
+            assertThrows(AccessDeniedException.class, () -> interceptor.preSend(
+                    message(accessor(StompCommand.SUBSCRIBE, destination, user("EMPLOYEE"))), channel));
+            assertDoesNotThrow(() -> interceptor.preSend(
+                    message(accessor(StompCommand.SUBSCRIBE, destination, user("HR"))), channel));
+            assertDoesNotThrow(() -> interceptor.preSend(
+                    message(accessor(StompCommand.SUBSCRIBE, destination, user("ADMIN"))), channel));
+        }
+    }
+
+    @Test
+    void meetingTopicsStayOpenAndProtectedTopicsRejectSends() {
+        assertDoesNotThrow(() -> interceptor.preSend(
+                message(accessor(StompCommand.SUBSCRIBE, "/topic/meeting/m-1", null)), channel));
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(
+                message(accessor(StompCommand.SEND, "/topic/admin/stats", user("ADMIN"))), channel));
+    }
+
+    private static StompHeaderAccessor accessor(StompCommand command, String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setUser(user);
+        accessor.setLeaveMutable(true);
+        return accessor;
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Principal user(String role) {
+        return new UsernamePasswordAuthenticationToken("user", null, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+}
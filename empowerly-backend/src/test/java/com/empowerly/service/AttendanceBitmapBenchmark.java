@@ -0,0 +1,140 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.AttendanceCalendar;
+import com.empowerly.model.Attendance;
+import com.empowerly.model.AttendanceBitmap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Calendar and streak queries over one user's year of weekday attendance:
+ * {@code getCalendar} served from a cached bitmap, the streak pass alone, and
+ * the same calendar computed by walking the year's records, which is what a
+ * range scan would have to do once the documents are fetched.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttendanceBitmapBenchmark {
+
+    private static final String USER = "user-1";
+    private static final int YEAR = 2024;
+
+    private AttendanceBitmapService service;
+    private AttendanceBitmap bitmap;
+    private List<Attendance> records;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        records = new ArrayList<>();
+        for (LocalDate date = LocalDate.of(YEAR, 1, 1); date.getYear() == YEAR; date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            Attendance record = new Attendance();
+            record.setUserId(USER);
+            record.setDate(date);
+            boolean leave = random.nextInt(20) == 0;
+            record.setAttendanceStatus(leave ? "LEAVE" : random.nextInt(15) == 0 ? "HALF_DAY" : "PRESENT");
+            record.setCheckInTime(leave ? null : date.atTime(9, 30));
+            record.setIsLate(!leave && random.nextInt(6) == 0);
+            record.setIsOvertime(!leave && random.nextInt(10) == 0);
+            records.add(record);
+        }
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findOne(any(Query.class), eq(AttendanceBitmap.class))).thenReturn(null);
+        when(mongoTemplate.find(any(Query.class), eq(Attendance.class))).thenReturn(records);
+        when(mongoTemplate.insert(any(AttendanceBitmap.class))).thenAnswer(invocation -> {
+            bitmap = invocation.getArgument(0);
+            return bitmap;
+        });
+        service = new AttendanceBitmapService(mongoTemplate);
+        // Builds the bitmap from the records once; every benchmark call is a cache hit
+        service.getCalendar(USER, YEAR);
+    }
+
+    @Benchmark
+    public AttendanceCalendar getCalendar() {
+        return service.getCalendar(USER, YEAR);
+    }
+
+    @Benchmark
+    public int[] presentStreaks() {
+        long[] recorded = new long[AttendanceBitmap.WORDS];
+        for (int word = 0; word < recorded.length; word++) {
+            recorded[word] = bitmap.getPresent()[word] | bitmap.getLeave()[word];
+        }
+        return AttendanceBitmapService.streaks(bitmap.getPresent(), recorded);
+    }
+
+    /**
+     * Days, counts and streaks from the year's records in date order.
+     */
+    @Benchmark
+    public AttendanceCalendar fromRecords() {
+        int[] days = new int[LocalDate.ofYearDay(YEAR, 1).lengthOfYear()];
+        int present = 0, late = 0, halfDays = 0, leave = 0, overtime = 0;
+        int presentRun = 0, longestPresent = 0, lateRun = 0, longestLate = 0;
+        for (Attendance record : records) {
+            int flags = 0;
+            boolean attended = record.getCheckInTime() != null;
+            if (attended) {
+                flags |= AttendanceCalendar.PRESENT;
+                present++;
+            }
+            if (Boolean.TRUE.equals(record.getIsLate())) {
+                flags |= AttendanceCalendar.LATE;
+                late++;
+            }
+            if ("HALF_DAY".equals(record.getAttendanceStatus())) {
+                flags |= AttendanceCalendar.HALF_DAY;
+                halfDays++;
+            }
+            if ("LEAVE".equals(record.getAttendanceStatus())) {
+                flags |= AttendanceCalendar.LEAVE;
+                leave++;
+            }
+            if (Boolean.TRUE.equals(record.getIsOvertime())) {
+                flags |= AttendanceCalendar.OVERTIME;
+                overtime++;
+            }
+            days[record.getDate().getDayOfYear() - 1] = flags;
+
+            presentRun = attended ? presentRun + 1 : 0;
+            longestPresent = Math.max(longestPresent, presentRun);
+            if (attended) {
+                lateRun = Boolean.TRUE.equals(record.getIsLate()) ? lateRun + 1 : 0;
+                longestLate = Math.max(longestLate, lateRun);
+            }
+        }
+        return new AttendanceCalendar(USER, YEAR, days, present, late, halfDays, leave, overtime,
+                presentRun, longestPresent, lateRun, longestLate);
+    }
+}
@@ -0,0 +1,186 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.AttendanceCalendar;
+import com.empowerly.model.Attendance;
+import com.empowerly.model.AttendanceBitmap;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AttendanceBitmapServiceTest {
+
+    private static final String USER = "user-1";
+
+    private MongoTemplate mongoTemplate;
+    private AttendanceBitmapService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new AttendanceBitmapService(mongoTemplate);
+        when(mongoTemplate.insert(any(AttendanceBitmap.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void buildsCalendarFromAttendanceAcrossWordAndYearBoundaries() {
+        // 2024 is a leap year: March 4 is day 64 (last bit of word 0), December 31 is day 366
+        when(mongoTemplate.find(any(Query.class), eq(Attendance.class))).thenReturn(List.of(
+                record(LocalDate.of(2024, 1, 1), true, false, "PRESENT", false),
+                record(LocalDate.of(2024, 1, 2), true, true, "LATE", false),
+                record(LocalDate.of(2024, 1, 3), true, true, "LATE", false),
+                record(LocalDate.of(2024, 1, 4), false, false, "LEAVE", false),
+                record(LocalDate.of(2024, 3, 4), true, false, "HALF_DAY", false),
+                record(LocalDate.of(2024, 12, 31), true, true, "LATE", true)));
+
+        AttendanceCalendar calendar = service.getCalendar(USER, 2024);
+
+        int[] days = calendar.getDays();
+        assertEquals(366, days.length);
+        assertEquals(AttendanceCalendar.PRESENT, days[0]);
+        assertEquals(AttendanceCalendar.PRESENT | AttendanceCalendar.LATE, days[1]);
+        assertEquals(AttendanceCalendar.LEAVE, days[3]);
+        assertEquals(0, days[4]);
+        assertEquals(AttendanceCalendar.PRESENT | AttendanceCalendar.HALF_DAY, days[63]);
+        assertEquals(0, days[64]);
+        assertEquals(AttendanceCalendar.PRESENT | AttendanceCalendar.LATE | AttendanceCalendar.OVERTIME, days[365]);
+
+        assertEquals(5, calendar.getPresentDays());
+        assertEquals(3, calendar.getLateDays());
+        assertEquals(1, calendar.getHalfDays());
+        assertEquals(1, calendar.getLeaveDays());
+        assertEquals(1, calendar.getOvertimeDays());
+
+        // The leave day breaks the present run; days without a record do not
+        assertEquals(2, calendar.getCurrentPresentStreak());
+        assertEquals(3, calendar.getLongestPresentStreak());
+        // Late runs walk attended days only, so the leave day is skipped
+        assertEquals(1, calendar.getCurrentLateStreak());
+        assertEquals(2, calendar.getLongestLateStreak());
+    }
+
+    @Test
+    void futureDaysDoNotCountTowardsStreaks() {
+        int nextYear = LocalDate.now().getYear() + 1;
+        AttendanceBitmap stored = AttendanceBitmap.empty(USER, nextYear);
+        stored.getLeave()[0] = 0b111;
+        when(mongoTemplate.findOne(any(Query.class), eq(AttendanceBitmap.class))).thenReturn(stored);
+
+        AttendanceCalendar calendar = service.getCalendar(USER, nextYear);
+
+        assertEquals(3, calendar.getLeaveDays());
+        assertEquals(AttendanceCalendar.LEAVE, calendar.getDays()[2]);
+        assertEquals(0, calendar.getCurrentPresentStreak());
+        assertEquals(0, calendar.getLongestPresentStreak());
+    }
+
+    @Test
+    void servesCalendarFromCacheUntilAWriteInvalidatesIt() {
+        when(mongoTemplate.findOne(any(Query.class), eq(AttendanceBitmap.class)))
+                .thenReturn(AttendanceBitmap.empty(USER, 2024));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(AttendanceBitmap.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        service.getCalendar(USER, 2024);
+        service.getCalendar(USER, 2024);
+        verify(mongoTemplate, times(1)).findOne(any(Query.class), eq(AttendanceBitmap.class));
+
+        service.apply(record(LocalDate.of(2024, 5, 1), true, false, "PRESENT", false));
+        service.getCalendar(USER, 2024);
+        verify(mongoTemplate, times(2)).findOne(any(Query.class), eq(AttendanceBitmap.class));
+    }
+
+    @Test
+    void applySetsFlaggedLanesAndClearsTheRest() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(AttendanceBitmap.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // March 5, 2024 is day 65: bit 0 of word 1
+        service.apply(record(LocalDate.of(2024, 3, 5), true, true, "LATE", false));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(AttendanceBitmap.class));
+
+        assertEquals(USER, query.getValue().getQueryObject().get("userId"));
+        assertEquals(2024, query.getValue().getQueryObject().get("year"));
+        Document bits = (Document) update.getValue().getUpdateObject().get("$bit");
+        assertEquals(5, bits.size());
+        assertEquals(new Document("or", 1L), bits.get("present.1"));
+        assertEquals(new Document("or", 1L), bits.get("late.1"));
+        assertEquals(new Document("and", ~1L), bits.get("halfDay.1"));
+        assertEquals(new Document("and", ~1L), bits.get("leave.1"));
+        assertEquals(new Document("and", ~1L), bits.get("overtime.1"));
+    }
+
+    @Test
+    void applyBuildsTheYearOnItsFirstWrite() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(AttendanceBitmap.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(mongoTemplate.find(any(Query.class), eq(Attendance.class))).thenReturn(List.of(
+                record(LocalDate.of(2025, 1, 1), true, false, "PRESENT", false)));
+
+        service.apply(record(LocalDate.of(2025, 1, 1), true, false, "PRESENT", false));
+
+        ArgumentCaptor<AttendanceBitmap> inserted = ArgumentCaptor.forClass(AttendanceBitmap.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertEquals(2025, inserted.getValue().getYear());
+        assertEquals(1L, inserted.getValue().getPresent()[0]);
+    }
+
+    @Test
+    void clearDaysIssuesOneUpdatePerYear() {
+        service.clearDays(USER, List.of(LocalDate.of(2024, 12, 31), LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 1, 2)));
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(queries.capture(), updates.capture(), eq(AttendanceBitmap.class));
+
+        Map<Integer, Document> bitsByYear = new HashMap<>();
+        for (int i = 0; i < 2; i++) {
+            bitsByYear.put((Integer) queries.getAllValues().get(i).getQueryObject().get("year"),
+                    (Document) updates.getAllValues().get(i).getUpdateObject().get("$bit"));
+        }
+
+        // Day 366 of 2024 is bit 365: bit 45 of word 5
+        Document lastYear = bitsByYear.get(2024);
+        assertEquals(5, lastYear.size());
+        assertEquals(new Document("and", ~(1L << 45)), lastYear.get("present.5"));
+        assertEquals(new Document("and", ~(1L << 45)), lastYear.get("leave.5"));
+
+        Document newYear = bitsByYear.get(2025);
+        assertEquals(5, newYear.size());
+        assertEquals(new Document("and", ~0b11L), newYear.get("present.0"));
+        assertEquals(new Document("and", ~0b11L), newYear.get("overtime.0"));
+    }
+
+    private static Attendance record(LocalDate date, boolean checkedIn, boolean late, String status,
+            boolean overtime) {
+        Attendance record = new Attendance();
+        record.setUserId(USER);
+        record.setDate(date);
+        record.setCheckInTime(checkedIn ? date.atTime(9, 30) : null);
+        record.setIsLate(late);
+        record.setAttendanceStatus(status);
+        record.setIsOvertime(overtime);
+        return record;
+    }
+}
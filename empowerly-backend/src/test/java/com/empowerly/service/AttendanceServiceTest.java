@@ -0,0 +1,36 @@
+package com.empowerly.service;
+
+import com.empowerly.service.AttendanceSummaryService.Contribution;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AttendanceServiceTest {
+
+    @Test
+    void reportCountsAttendedDaysAndLeaveDaysSeparately() {
+        AttendanceSummaryService summaries = mock(AttendanceSummaryService.class);
+        AttendanceService service = new AttendanceService();
+        ReflectionTestUtils.setField(service, "attendanceSummaryService", summaries);
+        ReflectionTestUtils.setField(service, "userDirectory", mock(UserDirectory.class));
+
+        LocalDate start = LocalDate.of(2026, 9, 1);
+        LocalDate end = LocalDate.of(2026, 9, 30);
+        // 12 records: 9 checked in (6 present, 2 late, 1 half day) and 3 leave days
+        when(summaries.totals("user-1", start, end)).thenReturn(new Contribution(12, 6, 2, 1, 3, 4_320, 90));
+
+        Map<String, Object> report = service.getAttendanceReport("user-1", start, end);
+
+        assertEquals(9, report.get("totalDays"));
+        assertEquals(3, report.get("totalLeaveDays"));
+        assertEquals(6, report.get("totalPresentDays"));
+        assertEquals(72.0, report.get("totalWorkingHours"));
+        assertEquals(1.5, report.get("totalOvertimeHours"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.empowerly.service;
+
+import com.empowerly.dto.InviteParticipantsRequest;
+import com.empowerly.model.Meeting;
+import com.empowerly.model.MeetingParticipant;
+import com.empowerly.model.User;
+import com.empowerly.repository.MeetingParticipantRepository;
+import com.empowerly.repository.MeetingRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.BsonObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MeetingServiceTest {
+
+    private static final String MEETING = "meeting-1";
+    private static final String HOST = "host";
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private SimpMessagingTemplate messagingTemplate;
+    private MeetingService service;
+
+    @BeforeEach
+    void setUp() {
+        MeetingRepository meetingRepository = mock(MeetingRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        service = new MeetingService(meetingRepository, mock(MeetingParticipantRepository.class), mongoTemplate,
+                new MeetingLinkCache(), messagingTemplate);
+
+        Meeting meeting = new Meeting();
+        meeting.setId(MEETING);
+        meeting.setHostId(HOST);
+        meeting.setTitle("Standup");
+        meeting.setMeetingLink("link-1");
+        when(meetingRepository.findById(MEETING)).thenReturn(Optional.of(meeting));
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(List.of(user(HOST), user("u1"), user("u2"), user("u3")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MeetingParticipant.class)).thenReturn(bulk);
+    }
+
+    @Test
+    void rejectsInvitesFromUsersOtherThanHostHrOrAdmin() {
+        assertThrows(RuntimeException.class,
+                () -> service.inviteParticipants(MEETING, request(), "someone-else", false));
+
+        verifyNoInteractions(bulk);
+        verify(mongoTemplate, never()).find(any(Query.class), eq(User.class));
+    }
+
+    @Test
+    void hrOrAdminMayInviteToAnotherUsersMeeting() {
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+
+        assertEquals(0, service.inviteParticipants(MEETING, request(), "hr-user", true));
+    }
+
+    @Test
+    void upsertsEveryRecipientButNotifiesOnlyNewInvitations() {
+        // u2 already had a participant record, so only u1 and u3 were inserted
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 0,
+                List.of(upsert(0), upsert(2)), List.of()));
+
+        int invited = service.inviteParticipants(MEETING, request(), HOST, false);
+
+        assertEquals(2, invited);
+        verify(bulk, times(3)).upsert(any(Query.class), any(Update.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/user/u1/invitations"), any(Object.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/user/u3/invitations"), any(Object.class));
+        verify(messagingTemplate, times(2)).convertAndSend(anyString(), any(Object.class));
+    }
+
+    private static InviteParticipantsRequest request() {
+        return new InviteParticipantsRequest(List.of("u1", "u2", "u3"), null, null);
+    }
+
+    private static BulkWriteUpsert upsert(int index) {
+        return new BulkWriteUpsert(index, new BsonObjectId());
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
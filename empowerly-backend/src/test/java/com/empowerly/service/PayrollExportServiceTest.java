@@ -0,0 +1,118 @@
+package com.empowerly.service;
+
+import com.empowerly.model.Payroll;
+import com.empowerly.model.PayrollEntry;
+import com.empowerly.repository.PayrollRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PayrollExportServiceTest {
+
+    private static final int RECORD = PayrollExportService.BANK_RECORD_LENGTH;
+
+    private MongoTemplate mongoTemplate;
+    private PayrollExportService service;
+    private PayrollExportService.BankFileInfo info;
+    private List<PayrollEntry> entries;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new PayrollExportService(mock(PayrollRepository.class), mongoTemplate);
+
+        Payroll payroll = new Payroll();
+        payroll.setId("payroll-2026-10");
+        payroll.setMonth(10);
+        payroll.setYear(2026);
+
+        // A name longer than its field and an amount that fills most of the width
+        entries = List.of(
+                entry("emp-001", "Asha Raman", 123456.78),
+                entry("emp-002", "A Very Long Employee Name That Overflows The Field", 99999999999.99),
+                entry("emp-003", "Ravi", 0.05));
+        when(mongoTemplate.stream(any(Query.class), eq(PayrollEntry.class)))
+                .thenAnswer(invocation -> entries.stream());
+
+        info = new PayrollExportService.BankFileInfo();
+        info.setPayroll(payroll);
+        info.setRecordCount(entries.size());
+        info.setTotalMinor(entries.stream().mapToLong(e -> SalaryKernel.toMinor(e.getNetSalary())).sum());
+        info.setLength((long) (entries.size() + 2) * RECORD);
+    }
+
+    @Test
+    void everyRecordHasTheFixedLength() throws IOException {
+        byte[] file = write(0, info.getLength() - 1);
+
+        assertEquals(info.getLength(), file.length);
+        String[] lines = new String(file, StandardCharsets.US_ASCII).split("\n", -1);
+        // Header, three details, trailer and the empty string after the last newline
+        assertEquals(entries.size() + 3, lines.length);
+        for (int i = 0; i < lines.length - 1; i++) {
+            assertEquals(RECORD - 1, lines[i].length(), "record " + i);
+        }
+        assertEquals('H', lines[0].charAt(0));
+        assertEquals('D', lines[1].charAt(0));
+        assertEquals('T', lines[lines.length - 2].charAt(0));
+    }
+
+    @Test
+    void detailAmountsAndTrailerTotalRoundTrip() throws IOException {
+        String[] lines = new String(write(0, info.getLength() - 1), StandardCharsets.US_ASCII).split("\n");
+
+        for (int i = 0; i < entries.size(); i++) {
+            String detail = lines[i + 1];
+            // "D" + employee id (24) + name (35) + period (6), then the amount (15)
+            assertEquals(entries.get(i).getEmployeeId(), detail.substring(1, 25).trim());
+            assertEquals("202610", detail.substring(60, 66));
+            long amount = Long.parseLong(detail.substring(66, 81));
+            assertEquals(SalaryKernel.toMinor(entries.get(i).getNetSalary()), amount);
+        }
+
+        String trailer = lines[lines.length - 1];
+        assertEquals(entries.size(), Integer.parseInt(trailer.substring(1, 10)));
+        assertEquals(info.getTotalMinor(), Long.parseLong(trailer.substring(10, 28)));
+    }
+
+    @Test
+    void rangeMatchesTheSameBytesOfTheWholeFile() throws IOException {
+        byte[] whole = write(0, info.getLength() - 1);
+        long start = RECORD + 30;
+        long end = 3L * RECORD + 5;
+
+        byte[] part = write(start, end);
+
+        byte[] expected = new byte[(int) (end - start + 1)];
+        System.arraycopy(whole, (int) start, expected, 0, expected.length);
+        assertArrayEquals(expected, part);
+    }
+
+    private byte[] write(long start, long end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeBankFile(info, start, end, out);
+        return out.toByteArray();
+    }
+
+    private static PayrollEntry entry(String employeeId, String name, double netSalary) {
+        PayrollEntry entry = new PayrollEntry();
+        entry.setEmployeeId(employeeId);
+        entry.setEmployeeName(name);
+        entry.setNetSalary(netSalary);
+        return entry;
+    }
+}
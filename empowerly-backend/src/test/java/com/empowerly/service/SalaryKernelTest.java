@@ -0,0 +1,124 @@
+package com.empowerly.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the paise kernel against the double-based formula it replaced. Each
+ * deduction is rounded once, so it may differ from the old value by at most
+ * half a paisa; the net carries up to three such roundings.
+ */
+class SalaryKernelTest {
+
+    private static final int SAMPLES = 200_000;
+    private static final double ONE_PAISA = 0.01;
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    void matchesDoubleFormulaOnRandomInputs() {
+        Random random = new Random(20261019L);
+        long[] deductions = new long[SalaryKernel.DEDUCTION_SLOTS];
+        for (int i = 0; i < SAMPLES; i++) {
+            long basic = random.nextInt(50_000_000);
+            long gross = basic + random.nextInt(30_000_000);
+            long taxBasisPoints = random.nextInt(4_001);
+            long pfBasisPoints = random.nextInt(2_001);
+            int workingDays = 1 + random.nextInt(31);
+            int unpaidLeaves = random.nextInt(workingDays + 1);
+            long penalties = random.nextInt(4) == 0 ? random.nextInt(500_000) : 0;
+
+            long net = SalaryKernel.calculate(basic, gross, taxBasisPoints, pfBasisPoints,
+                    workingDays, unpaidLeaves, penalties, deductions);
+
+            double[] old = oldFormula(SalaryKernel.toMajor(basic), SalaryKernel.toMajor(gross),
+                    taxBasisPoints / 100.0, pfBasisPoints / 100.0, workingDays, unpaidLeaves,
+                    SalaryKernel.toMajor(penalties));
+
+            String input = "basic=" + basic + " gross=" + gross + " tax=" + taxBasisPoints
+                    + " pf=" + pfBasisPoints + " days=" + workingDays + "/" + unpaidLeaves;
+            assertWithin(old[0], deductions[SalaryKernel.TAX], ONE_PAISA / 2, "tax " + input);
+            assertWithin(old[1], deductions[SalaryKernel.PF], ONE_PAISA / 2, "pf " + input);
+            assertWithin(old[2], deductions[SalaryKernel.UNPAID_LEAVE], ONE_PAISA / 2, "unpaid " + input);
+            assertWithin(old[3], deductions[SalaryKernel.PENALTIES], EPSILON, "penalties " + input);
+            assertWithin(old[4], net, 3 * ONE_PAISA / 2, "net " + input);
+        }
+    }
+
+    @Test
+    void convertsPercentagesToBasisPoints() {
+        assertEquals(1250, SalaryKernel.toBasisPoints(12.5));
+        assertEquals(7, SalaryKernel.toBasisPoints(0.07));
+        assertEquals(3333, SalaryKernel.toBasisPoints(33.33));
+        assertEquals(10_000, SalaryKernel.toBasisPoints(100));
+        assertEquals(0, SalaryKernel.toBasisPoints(0));
+    }
+
+    @Test
+    void roundsHalfUpToThePaisa() {
+        // 50 paise at 1% is exactly half a paisa
+        assertEquals(1, SalaryKernel.applyRate(50, 100));
+        assertEquals(0, SalaryKernel.applyRate(49, 100));
+        // 12.5% of 1.00 is 12.5 paise
+        assertEquals(13, SalaryKernel.applyRate(100, 1250));
+        assertEquals(0, SalaryKernel.applyRate(123_456, 0));
+        assertEquals(123_456, SalaryKernel.applyRate(123_456, 10_000));
+    }
+
+    @Test
+    void proratesUnpaidLeaveWithASingleRounding() {
+        long[] deductions = new long[SalaryKernel.DEDUCTION_SLOTS];
+        // 30000.00 over 22 days, 1 unpaid: 1363.6363... rounds to 1363.64
+        SalaryKernel.calculate(3_000_000, 3_000_000, 0, 0, 22, 1, 0, deductions);
+        assertEquals(136_364, deductions[SalaryKernel.UNPAID_LEAVE]);
+        // 1.00 over 8 days, 1 unpaid: exactly 12.5 paise rounds up
+        SalaryKernel.calculate(100, 100, 0, 0, 8, 1, 0, deductions);
+        assertEquals(13, deductions[SalaryKernel.UNPAID_LEAVE]);
+    }
+
+    @Test
+    void ignoresUnpaidLeaveWithoutWorkingDaysAndNegativePenalties() {
+        long[] deductions = new long[SalaryKernel.DEDUCTION_SLOTS];
+        long net = SalaryKernel.calculate(1_000_000, 1_200_000, 1000, 1200, 0, 3, -500, deductions);
+        assertEquals(0, deductions[SalaryKernel.UNPAID_LEAVE]);
+        assertEquals(0, deductions[SalaryKernel.PENALTIES]);
+        assertEquals(1_200_000 - 120_000 - 120_000, net);
+    }
+
+    @Test
+    void buildsNamedMapsOnlyForApplicableSlots() {
+        long[] allowances = { 100_050, 20_000, 0, 1_250, 0 };
+        Map<String, Double> allowanceMap = SalaryKernel.allowanceMap(allowances);
+        assertEquals(1000.5, allowanceMap.get("HRA"));
+        assertEquals(0.0, allowanceMap.get("Travel"));
+        assertFalse(allowanceMap.containsKey("Other"));
+
+        long[] deductions = { 5_000, 1_200, 0, 300 };
+        Map<String, Double> deductionMap = SalaryKernel.deductionMap(deductions);
+        assertEquals(50.0, deductionMap.get("Tax"));
+        assertFalse(deductionMap.containsKey("UnpaidLeave"));
+        assertEquals(3.0, deductionMap.get("Penalties"));
+    }
+
+    /**
+     * The pre-kernel calculation in rupees: tax, PF, unpaid leave, penalties, net.
+     */
+    private static double[] oldFormula(double basic, double gross, double taxPercentage,
+            double pfPercentage, int workingDays, int unpaidLeaves, double penalties) {
+        double tax = gross * (taxPercentage / 100);
+        double pf = basic * (pfPercentage / 100);
+        double unpaidLeave = unpaidLeaves > 0 ? (basic / workingDays) * unpaidLeaves : 0;
+        double penalty = penalties > 0 ? penalties : 0;
+        return new double[] { tax, pf, unpaidLeave, penalty, gross - tax - pf - unpaidLeave - penalty };
+    }
+
+    private static void assertWithin(double expectedMajor, long actualMinor, double tolerance, String message) {
+        double diff = Math.abs(expectedMajor - SalaryKernel.toMajor(actualMinor));
+        assertTrue(diff <= tolerance + EPSILON, message + " differs by " + diff);
+    }
+}
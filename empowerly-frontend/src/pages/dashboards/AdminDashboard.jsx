@@ -175,8 +175,8 @@ const AdminDashboard = () => {
 
     const fetchAllEmployeesAttendance = async () => {
         try {
-            const response = await attendanceAPI.getAllAttendance();
-            setAllEmployeesAttendance(response.data || []);
+            const response = await attendanceAPI.getAllAttendance({ limit: 100 });
+            setAllEmployeesAttendance(response.data?.items || []);
         } catch (error) {
             console.error('Error fetching all employees attendance:', error);
         }
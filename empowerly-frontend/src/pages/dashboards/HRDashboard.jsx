@@ -3,7 +3,7 @@ import { motion, AnimatePresence } from 'framer-motion';
 import { useAuth } from '../../context/AuthContext';
 import { useNotification } from '../../context/NotificationContext';
 import { useNavigate } from 'react-router-dom';
-import { attendanceAPI, leaveAPI, chatAPI, userAPI } from '../../services/api';
+import { attendanceAPI, leaveAPI, chatAPI, userAPI, adminAPI } from '../../services/api';
 import Chat from '../../components/chat/Chat';
 import Meetings from '../../components/meetings/Meetings';
 import HRNavigation from '../../components/navigation/HRNavigation';
@@ -31,6 +31,7 @@ const HRDashboard = () => {
 
     // HR-specific state
     const [allEmployeesAttendance, setAllEmployeesAttendance] = useState([]);
+    const [attendanceCursor, setAttendanceCursor] = useState(null);
     const [allLeaves, setAllLeaves] = useState([]);
     const [pendingLeaveRequests, setPendingLeaveRequests] = useState([]);
     const [companyStats, setCompanyStats] = useState({
@@ -85,13 +86,9 @@ const HRDashboard = () => {
             const usersRes = await userAPI.getAllUsers();
             const totalEmployees = usersRes.data?.length || 0;
 
-            // Fetch all attendance records for today
-            const attendanceRes = await attendanceAPI.getAllAttendance();
-            const today = new Date().toISOString().split('T')[0];
-            const presentToday = attendanceRes.data?.filter(record => {
-                const recordDate = new Date(record.date).toISOString().split('T')[0];
-                return recordDate === today && record.checkInTime != null;
-            }).length || 0;
+            // Present today comes from the live presence counters (checked in, whether or not checked out yet)
+            const statsRes = await adminAPI.getStats();
+            const presentToday = (statsRes.data?.activeToday || 0) + (statsRes.data?.checkedOutToday || 0);
 
             // Fetch pending leave requests for HR
             const pendingLeavesRes = await leaveAPI.getPending();
@@ -222,10 +219,12 @@ const HRDashboard = () => {
         }
     };
 
-    const fetchAllEmployeesAttendance = async () => {
+    const fetchAllEmployeesAttendance = async (cursor = null) => {
         try {
-            const response = await attendanceAPI.getAllAttendance();
-            setAllEmployeesAttendance(response.data || []);
+            const response = await attendanceAPI.getAllAttendance({ cursor, limit: 100 });
+            const items = response.data?.items || [];
+            setAllEmployeesAttendance(previous => (cursor ? [...previous, ...items] : items));
+            setAttendanceCursor(response.data?.nextCursor || null);
         } catch (error) {
             console.error('Error fetching all employees attendance:', error);
         }
@@ -693,6 +692,13 @@ const HRDashboard = () => {
                             )}
                         </tbody>
                     </table >
+                    {attendanceCursor && (
+                        <div style={{ textAlign: 'center', padding: '1rem' }}>
+                            <button className="btn btn-secondary" onClick={() => fetchAllEmployeesAttendance(attendanceCursor)}>
+                                Load more
+                            </button>
+                        </div>
+                    )}
                 </div >
             </div >
         );
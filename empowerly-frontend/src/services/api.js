@@ -66,7 +66,9 @@ export const attendanceAPI = {
     getMonthlyStats: (year, month) => api.get('/attendance/stats/monthly', {
         params: { year, month }
     }),
-    getAllAttendance: () => api.get('/attendance/all'),
+    getCalendar: (year) => api.get('/attendance/calendar', { params: { year } }),
+    // Paged org-wide feed: { items, nextCursor }; params: cursor, limit, from, to, department, status, late, overtime
+    getAllAttendance: (params) => api.get('/attendance/all', { params }),
 };
 
 // Leave APIs
@@ -162,6 +164,7 @@ export const payrollAPI = {
 
     // Admin endpoints
     approvePayroll: (payrollId, data) => api.post(`/payroll/${payrollId}/approve`, data),
+    renderPayslips: (payrollId) => api.post(`/payroll/${payrollId}/render-payslips`),
     rejectPayroll: (payrollId, data) => api.post(`/payroll/${payrollId}/reject`, data),
     deletePayroll: (payrollId) => api.delete(`/payroll/${payrollId}`),
 
@@ -11,8 +11,12 @@ class SocketService {
     connect(meetingId, onConnected, onError) {
         const socket = new SockJS('http://localhost:8080/ws');
 
+        const token = localStorage.getItem('token');
+
         this.client = new Client({
             webSocketFactory: () => socket,
+            // Authenticates the STOMP session; HR and Admin topics require it
+            connectHeaders: token ? { Authorization: `Bearer ${token}` } : {},
             debug: (str) => {
                 console.log('STOMP: ' + str);
             },